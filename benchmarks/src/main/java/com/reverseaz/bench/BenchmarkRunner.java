@@ -0,0 +1,27 @@
+package com.reverseaz.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Lance tous les benchmarks (ou ceux correspondant au filtre) avec le profiler
+ * GC pour obtenir ops/s et bytes alloués par opération (gc.alloc.rate.norm)
+ *
+ * Usage: java -jar benchmarks/target/benchmarks.jar [regex]
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "com\\.reverseaz\\.bench\\..*";
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+}
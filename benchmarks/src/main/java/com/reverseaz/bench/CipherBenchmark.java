@@ -0,0 +1,98 @@
+package com.reverseaz.bench;
+
+import com.reverseaz.auth.CipherStreams;
+import com.reverseaz.auth.EncryptionUtil;
+import com.reverseaz.net.BufferPool;
+import com.reverseaz.net.PooledOutputStream;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Cipher;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chiffrement/déchiffrement AES/CFB8 sur un flux de frames à la distribution
+ * réaliste, écrit et lu frame par frame comme dans le relay
+ *
+ * encrypt: écriture de la session vers le serveur (PooledOutputStream avec
+ * Cipher), frames en clair dans le tampon du lot et chiffrement au flush (un
+ * flush toutes les 4 frames). decrypt: CipherStreams.DecryptingInputStream
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CipherBenchmark {
+
+    private static final int FRAMES = 256;
+
+    private byte[][] frames;
+    private byte[] encryptedStream;
+    private byte[] readBuffer;
+    private ByteArrayOutputStream sink;
+    private PooledOutputStream encryptor;
+    private byte[] sharedSecret;
+
+    @Setup
+    public void setup() throws Exception {
+        byte[][] packets = PacketCorpus.packets(FRAMES, 11L);
+        frames = new byte[FRAMES][];
+        int largest = 0;
+        for (int i = 0; i < FRAMES; i++) {
+            frames[i] = PacketCorpus.compressedFrame(packets[i], PacketCorpus.DEFAULT_THRESHOLD);
+            largest = Math.max(largest, frames[i].length);
+        }
+        readBuffer = new byte[largest];
+        sharedSecret = EncryptionUtil.generateSharedSecret();
+
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+        PooledOutputStream out = new PooledOutputStream(encrypted, new BufferPool(8192, 4),
+                EncryptionUtil.createAESCipher(Cipher.ENCRYPT_MODE, sharedSecret));
+        for (byte[] frame : frames) {
+            out.write(frame, 0, frame.length);
+        }
+        out.flush();
+        encryptedStream = encrypted.toByteArray();
+
+        sink = new ByteArrayOutputStream(encryptedStream.length);
+        encryptor = new PooledOutputStream(sink, new BufferPool(8192, 4),
+                EncryptionUtil.createAESCipher(Cipher.ENCRYPT_MODE, sharedSecret));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public int encrypt() throws IOException {
+        sink.reset();
+        for (int i = 0; i < FRAMES; i++) {
+            encryptor.write(frames[i], 0, frames[i].length);
+            if (i % 4 == 3)
+                encryptor.flush();
+        }
+        encryptor.flush();
+        return sink.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public int decrypt() throws Exception {
+        InputStream in = new CipherStreams.DecryptingInputStream(new ByteArrayInputStream(encryptedStream),
+                sharedSecret);
+        int total = 0;
+        for (byte[] frame : frames) {
+            int remaining = frame.length;
+            while (remaining > 0) {
+                int read = in.read(readBuffer, 0, remaining);
+                if (read == -1)
+                    return total;
+                remaining -= read;
+                total += read;
+            }
+        }
+        return total;
+    }
+}
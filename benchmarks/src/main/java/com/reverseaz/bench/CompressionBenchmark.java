@@ -0,0 +1,54 @@
+package com.reverseaz.bench;
+
+import com.reverseaz.packet.CompressionHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+
+/**
+ * Inflate/deflate zlib via CompressionHandler pour des paquets au-dessus du
+ * seuil: moyens (entity metadata, window items) et chunks
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({ "300", "2048", "16384", "65536" })
+    public int size;
+
+    private CompressionHandler handler;
+    private byte[] packet;
+    private byte[] compressed;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(7L);
+        packet = size >= 8192 ? PacketCorpus.chunkLike(random, size) : new byte[size];
+        if (size < 8192) {
+            random.nextBytes(packet);
+            // Moitié aléatoire, moitié répétitive: metadata typique
+            for (int i = size / 2; i < size; i++)
+                packet[i] = (byte) (i & 0x07);
+        }
+        compressed = PacketCorpus.deflate(packet);
+
+        handler = new CompressionHandler();
+        handler.enableCompression(PacketCorpus.DEFAULT_THRESHOLD);
+    }
+
+    @Benchmark
+    public byte[] inflate() throws DataFormatException {
+        return handler.decompress(compressed, packet.length);
+    }
+
+    @Benchmark
+    public CompressionHandler.CompressionResult deflate() {
+        return handler.compress(packet);
+    }
+}
@@ -0,0 +1,169 @@
+package com.reverseaz.bench;
+
+import com.reverseaz.packet.PacketBuffer;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+/**
+ * Corpus déterministe de paquets protocol 110 avec une distribution de tailles
+ * réaliste (trafic S2C d'un serveur PvP en Play)
+ *
+ * Répartition:
+ * - 45% très petits (keepalive, velocity, relative move) : 3-16 bytes
+ * - 30% petits (metadata, head look, equipment) : 16-64 bytes
+ * - 17% moyens (spawn, teams, scoreboard) : 64-512 bytes
+ * - 6% gros (window items, multi block change) : 512-8192 bytes
+ * - 2% chunks : 8-96 KB, très compressibles
+ */
+public final class PacketCorpus {
+
+    public static final int PACKET_KEEP_ALIVE = 0x1F;
+    public static final int PACKET_CHUNK_DATA = 0x20;
+    public static final int PACKET_ENTITY_VELOCITY = 0x3B;
+
+    /** Seuil de compression par défaut d'un serveur Spigot */
+    public static final int DEFAULT_THRESHOLD = 256;
+
+    private PacketCorpus() {
+    }
+
+    /**
+     * Génère N paquets non compressés ([ID][Payload]) selon la distribution
+     */
+    public static byte[][] packets(int count, long seed) {
+        Random random = new Random(seed);
+        byte[][] packets = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            packets[i] = randomPacket(random);
+        }
+        return packets;
+    }
+
+    /**
+     * Génère N tailles de contenu selon la distribution
+     */
+    public static int[] sizes(int count, long seed) {
+        Random random = new Random(seed);
+        int[] sizes = new int[count];
+        for (int i = 0; i < count; i++) {
+            sizes[i] = randomSize(random);
+        }
+        return sizes;
+    }
+
+    private static int randomSize(Random random) {
+        int roll = random.nextInt(100);
+        if (roll < 45)
+            return 3 + random.nextInt(14);
+        if (roll < 75)
+            return 16 + random.nextInt(48);
+        if (roll < 92)
+            return 64 + random.nextInt(448);
+        if (roll < 98)
+            return 512 + random.nextInt(7680);
+        return 8192 + random.nextInt(90112);
+    }
+
+    private static byte[] randomPacket(Random random) {
+        int roll = random.nextInt(100);
+        if (roll < 15)
+            return keepAlive(random.nextInt(Integer.MAX_VALUE));
+        if (roll < 30)
+            return entityVelocity(random.nextInt(5000), (short) random.nextInt(8000), (short) random.nextInt(8000),
+                    (short) random.nextInt(8000));
+
+        int size = randomSize(random);
+        if (size >= 8192)
+            return chunkLike(random, size);
+
+        byte[] packet = new byte[size];
+        random.nextBytes(packet);
+        // Un ID de paquet Play valide sur 1 byte, différent de Entity Velocity
+        packet[0] = (byte) (0x21 + random.nextInt(0x18));
+        return packet;
+    }
+
+    public static byte[] keepAlive(int id) {
+        PacketBuffer buf = new PacketBuffer(6);
+        buf.writeVarInt(PACKET_KEEP_ALIVE);
+        buf.writeVarInt(id);
+        return buf.toArray();
+    }
+
+    public static byte[] entityVelocity(int entityId, short velX, short velY, short velZ) {
+        PacketBuffer buf = new PacketBuffer(12);
+        buf.writeVarInt(PACKET_ENTITY_VELOCITY);
+        buf.writeVarInt(entityId);
+        buf.writeShort(velX);
+        buf.writeShort(velY);
+        buf.writeShort(velZ);
+        return buf.toArray();
+    }
+
+    /**
+     * Paquet ressemblant à un Chunk Data: palette répétitive + bruit léger
+     */
+    public static byte[] chunkLike(Random random, int size) {
+        byte[] packet = new byte[size];
+        packet[0] = (byte) PACKET_CHUNK_DATA;
+        for (int i = 1; i < size; i++) {
+            packet[i] = (byte) ((i & 0x3F) == 0 ? random.nextInt(256) : (i >> 6) & 0x0F);
+        }
+        return packet;
+    }
+
+    /**
+     * Encadre un paquet au format compressé: [PacketLength][DataLength][Data]
+     */
+    public static byte[] compressedFrame(byte[] packet, int threshold) {
+        PacketBuffer frame = new PacketBuffer(packet.length + 10);
+        if (packet.length >= threshold) {
+            byte[] compressed = deflate(packet);
+            frame.writeVarInt(PacketBuffer.getVarIntSize(packet.length) + compressed.length);
+            frame.writeVarInt(packet.length);
+            frame.writeBytes(compressed, 0, compressed.length);
+        } else {
+            frame.writeVarInt(packet.length + 1);
+            frame.writeVarInt(0);
+            frame.writeBytes(packet, 0, packet.length);
+        }
+        return frame.toArray();
+    }
+
+    /**
+     * Encadre un paquet au format non compressé: [PacketLength][ID][Payload]
+     */
+    public static byte[] plainFrame(byte[] packet) {
+        PacketBuffer frame = new PacketBuffer(packet.length + 5);
+        frame.writeVarInt(packet.length);
+        frame.writeBytes(packet, 0, packet.length);
+        return frame.toArray();
+    }
+
+    /**
+     * Concatène des frames en un flux continu, comme reçu sur le socket
+     */
+    public static byte[] stream(byte[][] frames) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] frame : frames) {
+            out.write(frame, 0, frame.length);
+        }
+        return out.toByteArray();
+    }
+
+    public static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            int count = deflater.deflate(buffer);
+            out.write(buffer, 0, count);
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+}
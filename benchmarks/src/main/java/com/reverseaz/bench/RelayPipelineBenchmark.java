@@ -0,0 +1,110 @@
+package com.reverseaz.bench;
+
+import com.reverseaz.VelocityModifier;
+import com.reverseaz.net.BufferPool;
+import com.reverseaz.net.FrameSink;
+import com.reverseaz.net.PooledInputStream;
+import com.reverseaz.net.PooledOutputStream;
+import com.reverseaz.packet.FrameReader;
+import com.reverseaz.packet.FrameRelay;
+import com.reverseaz.packet.ZlibOffload;
+import com.reverseaz.packet.ZlibPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chemin chaud du relay en Play, tel que la session l'exécute: FrameReader
+ * sur un PooledInputStream, FrameRelay (DataLength, limites de FrameLimits,
+ * décompression éventuellement par tranches, vélocité modifiée en place) et
+ * écriture des frames en deux segments dans un PooledOutputStream
+ *
+ * relay: serveur -> client (toujours non compressé vers le client).
+ * relayClientToServer: client -> serveur, recompressé au seuil du serveur.
+ * Offload zlib désactivé: tout sur le thread mesuré.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dreverseaz.kb.log=false")
+public class RelayPipelineBenchmark {
+
+    private static final int FRAMES = 512;
+
+    @Param({ "true", "false" })
+    public boolean compressed;
+
+    @Param({ "1.0", "0.5" })
+    public double multiplier;
+
+    private byte[] serverStream;
+    private byte[] clientStream;
+    private BufferPool pool;
+    private ByteArrayOutputStream sink;
+    private FrameRelay relay;
+
+    @Setup
+    public void setup() {
+        byte[][] packets = PacketCorpus.packets(FRAMES, 1234L);
+        int threshold = compressed ? PacketCorpus.DEFAULT_THRESHOLD : -1;
+        byte[][] serverFrames = new byte[FRAMES][];
+        byte[][] clientFrames = new byte[FRAMES][];
+        for (int i = 0; i < FRAMES; i++) {
+            serverFrames[i] = compressed
+                    ? PacketCorpus.compressedFrame(packets[i], threshold)
+                    : PacketCorpus.plainFrame(packets[i]);
+            clientFrames[i] = PacketCorpus.plainFrame(packets[i]);
+        }
+        serverStream = PacketCorpus.stream(serverFrames);
+        clientStream = PacketCorpus.stream(clientFrames);
+        pool = new BufferPool(8192, 4);
+        sink = new ByteArrayOutputStream(serverStream.length * 4);
+
+        VelocityModifier velocityModifier = new VelocityModifier();
+        velocityModifier.setMultipliers(multiplier, multiplier, multiplier);
+        relay = new FrameRelay(velocityModifier, new ZlibPool(2), new ZlibOffload(0, 65536, 32768), 65536);
+        relay.setCompressionThreshold(threshold);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public int relay() throws IOException {
+        sink.reset();
+        PooledOutputStream out = new PooledOutputStream(sink, pool);
+        FrameSink toClient = writingTo(out);
+        FrameReader reader = new FrameReader(new PooledInputStream(new ByteArrayInputStream(serverStream), pool), 0,
+                0);
+        byte[] frame;
+        while ((frame = reader.next()) != null)
+            relay.serverToClient(frame, reader.getLength(), toClient);
+        out.flush();
+        return sink.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public int relayClientToServer() throws IOException {
+        sink.reset();
+        PooledOutputStream out = new PooledOutputStream(sink, pool);
+        FrameSink toServer = writingTo(out);
+        FrameReader reader = new FrameReader(new PooledInputStream(new ByteArrayInputStream(clientStream), pool),
+                FrameRelay.CLIENT_HEADROOM, 0);
+        byte[] frame;
+        while ((frame = reader.next()) != null)
+            relay.clientToServer(frame, reader.getLength(), toServer);
+        out.flush();
+        return sink.size();
+    }
+
+    /**
+     * Comme l'écrivain de la session: chaque frame posée dans le tampon du lot
+     */
+    private static FrameSink writingTo(PooledOutputStream out) {
+        return (data, offset, length, lengthPrefixed) -> out.writeFrame(data, offset, length, lengthPrefixed);
+    }
+}
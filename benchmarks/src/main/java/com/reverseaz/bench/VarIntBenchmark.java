@@ -0,0 +1,190 @@
+package com.reverseaz.bench;
+
+import com.reverseaz.net.BufferPool;
+import com.reverseaz.net.PooledInputStream;
+import com.reverseaz.packet.PacketBuffer;
+import com.reverseaz.packet.VarInt;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VarInt: lecture, écriture et calcul de taille sur des longueurs de paquets
+ * réalistes (majoritairement 1-2 bytes, quelques 3 bytes pour les chunks)
+ *
+ * Les méthodes *Legacy reprennent les implémentations remplacées par le codec
+ * VarInt (boucle et décalage, un read() par octet sur les flux) comme
+ * référence de comparaison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VarIntBenchmark {
+
+    private static final int VALUES = 1024;
+
+    private int[] values;
+    private PacketBuffer encoded;
+    private PacketBuffer scratch;
+    private byte[] stream;
+    private BufferPool pool;
+
+    @Setup
+    public void setup() {
+        values = PacketCorpus.sizes(VALUES, 42L);
+        encoded = new PacketBuffer(VALUES * 5);
+        for (int value : values) {
+            encoded.writeVarInt(value);
+        }
+        scratch = new PacketBuffer(VALUES * 5);
+        stream = encoded.toArray();
+        pool = new BufferPool(8192, 4);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void readVarInt(Blackhole bh) {
+        encoded.setReaderIndex(0);
+        for (int i = 0; i < VALUES; i++) {
+            bh.consume(encoded.readVarInt());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void decode(Blackhole bh) {
+        // Même parcours que readVarIntLegacy (index local), via le codec
+        byte[] data = encoded.getData();
+        int limit = encoded.getWriterIndex();
+        int index = 0;
+        for (int i = 0; i < VALUES; i++) {
+            long decoded = VarInt.decode(data, index, limit);
+            if (decoded == VarInt.INCOMPLETE || decoded == VarInt.MALFORMED)
+                throw new RuntimeException("VarInt invalide");
+            index += VarInt.decodedSize(decoded);
+            bh.consume(VarInt.decodedValue(decoded));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void readVarIntLegacy(Blackhole bh) {
+        byte[] data = encoded.getData();
+        int limit = encoded.getWriterIndex();
+        int index = 0;
+        for (int i = 0; i < VALUES; i++) {
+            int value = 0;
+            int position = 0;
+            byte currentByte;
+            do {
+                if (index >= limit)
+                    throw new RuntimeException("VarInt too long or incomplete");
+                currentByte = data[index++];
+                value |= (currentByte & 0x7F) << position;
+                position += 7;
+                if (position > 35)
+                    throw new RuntimeException("VarInt too big");
+            } while ((currentByte & 0x80) != 0);
+            bh.consume(value);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void readStream(Blackhole bh) throws IOException {
+        // Tailles de frame lues sur le flux de la session (décodées dans son tampon)
+        PooledInputStream in = new PooledInputStream(new ByteArrayInputStream(stream), pool);
+        for (int i = 0; i < VALUES; i++) {
+            bh.consume(in.readVarInt());
+        }
+        in.release();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void readStreamLegacy(Blackhole bh) throws IOException {
+        PooledInputStream in = new PooledInputStream(new ByteArrayInputStream(stream), pool);
+        for (int i = 0; i < VALUES; i++) {
+            bh.consume(readVarIntLegacy(in));
+        }
+        in.release();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public int writeVarInt() {
+        scratch.clear();
+        for (int i = 0; i < VALUES; i++) {
+            scratch.writeVarInt(values[i]);
+        }
+        return scratch.getWriterIndex();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public int writeVarIntLegacy() {
+        scratch.clear();
+        for (int i = 0; i < VALUES; i++) {
+            int value = values[i];
+            while ((value & ~0x7F) != 0) {
+                scratch.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            scratch.writeByte(value);
+        }
+        return scratch.getWriterIndex();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public int getVarIntSize() {
+        int total = 0;
+        for (int i = 0; i < VALUES; i++) {
+            total += VarInt.size(values[i]);
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public int getVarIntSizeLegacy() {
+        int total = 0;
+        for (int i = 0; i < VALUES; i++) {
+            int value = values[i];
+            if ((value & 0xFFFFFF80) == 0)
+                total += 1;
+            else if ((value & 0xFFFFC000) == 0)
+                total += 2;
+            else if ((value & 0xFFE00000) == 0)
+                total += 3;
+            else if ((value & 0xF0000000) == 0)
+                total += 4;
+            else
+                total += 5;
+        }
+        return total;
+    }
+
+    private static int readVarIntLegacy(InputStream in) throws IOException {
+        int value = 0;
+        int position = 0;
+        int b;
+        do {
+            b = in.read();
+            if (b == -1)
+                return -1;
+            value |= (b & 0x7F) << position;
+            position += 7;
+            if (position > 35)
+                throw new IOException("VarInt too big");
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,45 @@
+package com.reverseaz.bench;
+
+import com.reverseaz.VelocityModifier;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application des multiplicateurs KB sur des vélocités de combat typiques
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VelocityModifierBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private VelocityModifier modifier;
+    private short[] velocities;
+
+    @Setup
+    public void setup() {
+        modifier = new VelocityModifier();
+        modifier.setMultipliers(0.6, 0.9, 0.6);
+
+        Random random = new Random(3L);
+        velocities = new short[SAMPLES * 3];
+        for (int i = 0; i < velocities.length; i++) {
+            velocities[i] = (short) (random.nextGaussian() * 4000);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void modifyVelocity(Blackhole bh) {
+        for (int i = 0; i < velocities.length; i += 3) {
+            bh.consume(modifier.modifyVelocity(velocities[i], velocities[i + 1], velocities[i + 2]));
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.reverseaz.loadtest;
+
+import com.reverseaz.packet.PacketBuffer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client bot 1.9.4: handshake + Login Start, attend Login Success puis envoie
+ * des Player Position à 20 Hz en lisant le flux Play. Les paquets sonde du
+ * serveur alimentent l'histogramme de latence.
+ */
+public class BotClient implements Runnable {
+
+    private static final int PROTOCOL_VERSION = 110;
+
+    private final String host;
+    private final int port;
+    private final String username;
+    private final ScheduledExecutorService ticker;
+    private final boolean loginOnly;
+    private volatile LatencyHistogram latency = new LatencyHistogram();
+
+    private volatile Connection connection;
+    private volatile boolean loggedIn;
+    private volatile boolean stopped;
+    private volatile long packetsReceived;
+    private volatile long chunksReceived;
+    private volatile long loginNanos;
+    private volatile String disconnectReason;
+    private ScheduledFuture<?> movementTask;
+
+    public BotClient(String host, int port, String username, ScheduledExecutorService ticker) {
+        this(host, port, username, ticker, false);
+    }
+
+    /**
+     * @param loginOnly se déconnecter dès le Login Success (mesure du temps de login)
+     */
+    public BotClient(String host, int port, String username, ScheduledExecutorService ticker, boolean loginOnly) {
+        this.host = host;
+        this.port = port;
+        this.username = username;
+        this.ticker = ticker;
+        this.loginOnly = loginOnly;
+    }
+
+    @Override
+    public void run() {
+        try {
+            Socket socket = new Socket();
+            socket.connect(new InetSocketAddress(host, port), 10000);
+            connection = new Connection(socket);
+            long handshakeStart = System.nanoTime();
+
+            PacketBuffer handshake = new PacketBuffer(64);
+            handshake.writeVarInt(PROTOCOL_VERSION);
+            Connection.writeString(handshake, host);
+            handshake.writeShort((short) port);
+            handshake.writeVarInt(2);
+            connection.writePacket(0x00, handshake.toArray(), false);
+
+            PacketBuffer loginStart = new PacketBuffer(32);
+            Connection.writeString(loginStart, username);
+            connection.writePacket(0x00, loginStart.toArray(), true);
+
+            if (!awaitLoginSuccess())
+                return;
+            loginNanos = System.nanoTime() - handshakeStart;
+            loggedIn = true;
+            if (loginOnly)
+                return;
+
+            movementTask = ticker.scheduleAtFixedRate(this::sendMovement, 0, 50, TimeUnit.MILLISECONDS);
+            readPlay();
+        } catch (IOException e) {
+            if (!stopped)
+                System.err.println("[Bot " + username + "] " + e.getMessage());
+        } finally {
+            stop();
+        }
+    }
+
+    private boolean awaitLoginSuccess() throws IOException {
+        Connection.Packet packet;
+        while ((packet = connection.readPacket()) != null) {
+            if (packet.id == 0x03) {
+                // Le proxy absorbe normalement le Set Compression, mais un serveur direct l'envoie
+                connection.enableCompression(packet.payload.readVarInt());
+            } else if (packet.id == 0x02) {
+                return true;
+            } else if (packet.id == 0x00) {
+                disconnectReason = Connection.readString(packet.payload);
+                if (!loginOnly)
+                    System.err.println("[Bot " + username + "] Disconnect: " + disconnectReason);
+                return false;
+            } else if (packet.id == 0x01) {
+                System.err.println("[Bot " + username + "] Encryption Request reçue en direct - non supporté");
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private void readPlay() throws IOException {
+        Connection.Packet packet;
+        while ((packet = connection.readPacket()) != null) {
+            packetsReceived++;
+            if (packet.id == StandInServer.PACKET_CHUNK_DATA) {
+                chunksReceived++;
+            } else if (packet.id == StandInServer.PACKET_PLUGIN_MESSAGE) {
+                String channel = Connection.readString(packet.payload);
+                if (StandInServer.PROBE_CHANNEL.equals(channel))
+                    latency.record(System.nanoTime() - Connection.readLong(packet.payload));
+            }
+        }
+    }
+
+    private void sendMovement() {
+        Connection conn = connection;
+        if (conn == null)
+            return;
+        try {
+            PacketBuffer position = new PacketBuffer(25);
+            Connection.writeDouble(position, Math.random() * 100);
+            Connection.writeDouble(position, 64.0);
+            Connection.writeDouble(position, Math.random() * 100);
+            position.writeByte(1);
+            conn.writePacket(StandInServer.PACKET_PLAYER_POSITION, position.toArray(), true);
+        } catch (IOException e) {
+            stop();
+        }
+    }
+
+    public void stop() {
+        stopped = true;
+        if (movementTask != null)
+            movementTask.cancel(false);
+        Connection conn = connection;
+        if (conn != null)
+            conn.close();
+    }
+
+    public boolean isLoggedIn() {
+        return loggedIn;
+    }
+
+    /**
+     * @return le message du Login Disconnect reçu, ou null
+     */
+    public String getDisconnectReason() {
+        return disconnectReason;
+    }
+
+    public long getPacketsReceived() {
+        return packetsReceived;
+    }
+
+    public long getBytesReceived() {
+        Connection conn = connection;
+        return conn != null ? conn.bytesRead : 0;
+    }
+
+    /**
+     * @return durée Handshake → Login Success en nanosecondes (0 si pas connecté)
+     */
+    public long getLoginNanos() {
+        return loginNanos;
+    }
+
+    public long getChunksReceived() {
+        return chunksReceived;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Repart d'un histogramme vide (fin du warm-up)
+     */
+    public void resetLatency() {
+        latency = new LatencyHistogram();
+    }
+}
@@ -0,0 +1,213 @@
+package com.reverseaz.loadtest;
+
+import com.reverseaz.auth.CipherStreams;
+import com.reverseaz.auth.EncryptionUtil;
+import com.reverseaz.net.BufferPool;
+import com.reverseaz.net.PooledOutputStream;
+import com.reverseaz.packet.PacketBuffer;
+
+import javax.crypto.Cipher;
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Connexion protocol 110 côté test: framing VarInt, compression zlib et
+ * encryption AES/CFB8 optionnelles. Les écritures sont synchronisées pour
+ * permettre plusieurs émetteurs (stream serveur + keepalive, mouvements bot).
+ */
+final class Connection implements Closeable {
+
+    private static final int BUFFER_SIZE = 65536;
+
+    private final Socket socket;
+    private InputStream in;
+    private OutputStream out;
+    private int compressionThreshold = -1;
+    private final Inflater inflater = new Inflater();
+    private final Deflater deflater = new Deflater();
+    private final byte[] deflateBuffer = new byte[8192];
+
+    long bytesRead;
+    long bytesWritten;
+
+    Connection(Socket socket) throws IOException {
+        this.socket = socket;
+        socket.setTcpNoDelay(true);
+        this.in = new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE);
+        this.out = new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE);
+    }
+
+    void enableCompression(int threshold) {
+        this.compressionThreshold = threshold;
+    }
+
+    /**
+     * Active l'encryption dans les deux sens (après l'Encryption Response)
+     */
+    synchronized void enableEncryption(byte[] sharedSecret) throws Exception {
+        out.flush();
+        in = new CipherStreams.DecryptingInputStream(in, sharedSecret);
+        // Chiffrement par lot au flush, comme le proxy vers le serveur
+        out = new PooledOutputStream(socket.getOutputStream(), new BufferPool(BUFFER_SIZE, 1),
+                EncryptionUtil.createAESCipher(Cipher.ENCRYPT_MODE, sharedSecret));
+    }
+
+    /**
+     * Lit un paquet complet, décompressé
+     *
+     * @return le buffer positionné après l'ID, ou null en fin de flux
+     */
+    Packet readPacket() throws IOException {
+        int length = readVarInt(in);
+        if (length < 0)
+            return null;
+
+        byte[] frame = new byte[length];
+        int total = 0;
+        while (total < length) {
+            int read = in.read(frame, total, length - total);
+            if (read == -1)
+                return null;
+            total += read;
+        }
+        bytesRead += PacketBuffer.getVarIntSize(length) + length;
+
+        PacketBuffer buf = PacketBuffer.wrap(frame, length);
+        if (compressionThreshold >= 0) {
+            int dataLength = buf.readVarInt();
+            if (dataLength > 0) {
+                byte[] inflated = new byte[dataLength];
+                inflater.reset();
+                inflater.setInput(frame, buf.getReaderIndex(), buf.readableBytes());
+                try {
+                    inflater.inflate(inflated);
+                } catch (DataFormatException e) {
+                    throw new IOException("Decompression failed", e);
+                }
+                buf = PacketBuffer.wrap(inflated, dataLength);
+            }
+        }
+
+        int packetId = buf.readVarInt();
+        return new Packet(packetId, buf);
+    }
+
+    /**
+     * Écrit un paquet [ID][Payload] en appliquant compression et framing
+     */
+    synchronized void writePacket(int packetId, byte[] payload, boolean flush) throws IOException {
+        PacketBuffer content = new PacketBuffer(payload.length + 5);
+        content.writeVarInt(packetId);
+        content.writeBytes(payload, 0, payload.length);
+        int contentLength = content.getWriterIndex();
+
+        PacketBuffer frame = new PacketBuffer(contentLength + 10);
+        if (compressionThreshold >= 0) {
+            if (contentLength >= compressionThreshold) {
+                byte[] compressed = deflate(content.getData(), contentLength);
+                frame.writeVarInt(PacketBuffer.getVarIntSize(contentLength) + compressed.length);
+                frame.writeVarInt(contentLength);
+                frame.writeBytes(compressed, 0, compressed.length);
+            } else {
+                frame.writeVarInt(contentLength + 1);
+                frame.writeVarInt(0);
+                frame.writeBytes(content.getData(), 0, contentLength);
+            }
+        } else {
+            frame.writeVarInt(contentLength);
+            frame.writeBytes(content.getData(), 0, contentLength);
+        }
+
+        out.write(frame.getData(), 0, frame.getWriterIndex());
+        bytesWritten += frame.getWriterIndex();
+        if (flush)
+            out.flush();
+    }
+
+    synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    private byte[] deflate(byte[] data, int length) {
+        deflater.reset();
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2 + 16);
+        while (!deflater.finished()) {
+            int count = deflater.deflate(deflateBuffer);
+            compressed.write(deflateBuffer, 0, count);
+        }
+        return compressed.toByteArray();
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    static int readVarInt(InputStream in) throws IOException {
+        int value = 0;
+        int position = 0;
+        int b;
+        do {
+            b = in.read();
+            if (b == -1)
+                return -1;
+            value |= (b & 0x7F) << position;
+            position += 7;
+            if (position > 35)
+                throw new IOException("VarInt too big");
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    static String readString(PacketBuffer buf) {
+        int length = buf.readVarInt();
+        return new String(buf.readBytes(length), StandardCharsets.UTF_8);
+    }
+
+    static void writeString(PacketBuffer buf, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        buf.writeVarInt(bytes.length);
+        buf.writeBytes(bytes, 0, bytes.length);
+    }
+
+    static void writeLong(PacketBuffer buf, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buf.writeByte((int) (value >>> shift));
+        }
+    }
+
+    static long readLong(PacketBuffer buf) {
+        byte[] bytes = buf.readBytes(8);
+        long value = 0;
+        for (byte b : bytes) {
+            value = (value << 8) | (b & 0xFF);
+        }
+        return value;
+    }
+
+    static void writeDouble(PacketBuffer buf, double value) {
+        writeLong(buf, Double.doubleToLongBits(value));
+    }
+
+    /**
+     * Paquet lu: ID + buffer positionné sur le payload
+     */
+    static final class Packet {
+        final int id;
+        final PacketBuffer payload;
+
+        Packet(int id, PacketBuffer payload) {
+            this.id = id;
+            this.payload = payload;
+        }
+    }
+}
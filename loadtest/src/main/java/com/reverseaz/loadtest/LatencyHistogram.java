@@ -0,0 +1,91 @@
+package com.reverseaz.loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogramme log-linéaire de latences (nanosecondes), précision ~6%
+ * Buckets: puissance de 2 découpée en 16 sous-buckets, de 1 ns à ~2^40 ns
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAGNITUDES = 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray(MAGNITUDES * SUB_BUCKETS);
+    private volatile long max;
+
+    public void record(long nanos) {
+        if (nanos < 0)
+            nanos = 0;
+        counts.incrementAndGet(indexOf(nanos));
+        if (nanos > max)
+            max = nanos;
+    }
+
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.addAndGet(i, other.counts.get(i));
+        }
+        if (other.max > max)
+            max = other.max;
+    }
+
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++)
+            total += counts.get(i);
+        return total;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    /**
+     * @param percentile entre 0 et 100
+     * @return borne haute du bucket contenant le percentile, en nanosecondes
+     */
+    public long percentile(double percentile) {
+        long total = count();
+        if (total == 0)
+            return 0;
+        long target = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target)
+                return Math.min(upperBound(i), max);
+        }
+        return max;
+    }
+
+    /**
+     * Nombre de mesures dans les buckets jusqu'à celui de nanos inclus
+     */
+    public long countAtOrBelow(long nanos) {
+        int last = indexOf(Math.max(0, nanos));
+        long total = 0;
+        for (int i = 0; i <= last; i++)
+            total += counts.get(i);
+        return total;
+    }
+
+    private static int indexOf(long nanos) {
+        if (nanos < SUB_BUCKETS)
+            return (int) nanos;
+        int magnitude = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BITS + 1;
+        if (magnitude >= MAGNITUDES)
+            return MAGNITUDES * SUB_BUCKETS - 1;
+        int sub = (int) (nanos >>> (magnitude - 1)) & (SUB_BUCKETS - 1);
+        return magnitude * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int index) {
+        int magnitude = index / SUB_BUCKETS;
+        int sub = index % SUB_BUCKETS;
+        if (magnitude == 0)
+            return sub;
+        return ((long) (SUB_BUCKETS + sub + 1) << (magnitude - 1)) - 1;
+    }
+}
@@ -0,0 +1,334 @@
+package com.reverseaz.loadtest;
+
+import com.reverseaz.MinecraftProxy;
+import com.reverseaz.ProxyConfig;
+import com.reverseaz.ProxySession;
+import com.reverseaz.net.RoutingTable;
+import com.reverseaz.net.SessionArena;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test de charge de bout en bout sur loopback:
+ * N bots → MinecraftProxy (in-process) → StandInServer
+ *
+ * Rapporte le débit reçu par les bots, la latence par paquet (sonde horodatée
+ * par le serveur) et le CPU consommé par les threads du proxy par session.
+ * Avec --direct les bots se connectent au serveur sans proxy: la différence
+ * des deux runs donne la latence ajoutée par le proxy. Avec --busy-poll µs le
+ * proxy ouvre un second listener (port + 1) en busy-poll et les bots se
+ * répartissent un sur deux: latences relay / busy-poll comparées sous la
+ * même charge, histogramme par tranche de latence.
+ *
+ * Usage: java -jar loadtest/target/loadtest.jar [options]
+ * --bots N (50) --duration s (30) --warmup s (5) --rate pkt/s/session (200)
+ * --chunks % (2) --chunk-kb taille max (40) --storm N (chunks pour N sessions seulement)
+ * --compression seuil (256, -1 = off) --encryption --direct
+ * --proxy-port port (25566) --flood logins/s (0, connexions login-only pendant la mesure)
+ * --busy-poll µs (0, comparaison relay / busy-poll)
+ */
+public class LoadTest {
+
+    /** Préfixe des threads du harness, exclus de la mesure CPU du proxy */
+    static final String THREAD_PREFIX = "lt-";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int bots = Integer.parseInt(options.getOrDefault("bots", "50"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        int rate = Integer.parseInt(options.getOrDefault("rate", "200"));
+        int chunks = Integer.parseInt(options.getOrDefault("chunks", "2"));
+        int chunkKb = Integer.parseInt(options.getOrDefault("chunk-kb", "40"));
+        int storm = Integer.parseInt(options.getOrDefault("storm", "0"));
+        int compression = Integer.parseInt(options.getOrDefault("compression", "256"));
+        boolean encryption = options.containsKey("encryption");
+        boolean direct = options.containsKey("direct");
+        int proxyPort = Integer.parseInt(options.getOrDefault("proxy-port", "25566"));
+        int flood = Integer.parseInt(options.getOrDefault("flood", "0"));
+        int busyPoll = Integer.parseInt(options.getOrDefault("busy-poll", "0"));
+        // Tous les bots viennent de 127.0.0.1: pas de limite par IP sauf demande explicite
+        if (System.getProperty("reverseaz.sessions.perIpRate") == null)
+            System.setProperty("reverseaz.sessions.perIpRate", "0");
+
+        if (direct && encryption) {
+            System.err.println("[-] --direct ne supporte pas --encryption (les bots ne chiffrent pas)");
+            return;
+        }
+        if (direct && busyPoll > 0) {
+            System.err.println("[-] --busy-poll compare deux listeners du proxy, incompatible avec --direct");
+            return;
+        }
+
+        StandInServer server = new StandInServer(compression, encryption, rate, chunks);
+        server.setMaxChunkBytes(chunkKb * 1024);
+        server.setStormSessions(storm);
+        int serverPort = server.start();
+        System.out.println("[*] Stand-in server sur 127.0.0.1:" + serverPort + " (compression=" + compression
+                + ", encryption=" + encryption + ", " + rate + " pkt/s/session)");
+
+        MinecraftProxy proxy = null;
+        int targetPort = serverPort;
+        if (!direct) {
+            if (busyPoll > 0) {
+                proxy = new MinecraftProxy(new ProxyConfig(Arrays.asList(
+                        listener("relay", proxyPort, serverPort, 0),
+                        listener("busy-poll", proxyPort + 1, serverPort, busyPoll))), null);
+            } else {
+                proxy = new MinecraftProxy(proxyPort, "127.0.0.1", serverPort, null);
+            }
+            Thread proxyThread = new Thread(proxy::start, "proxy-accept");
+            proxyThread.setDaemon(true);
+            proxyThread.start();
+            awaitListening(proxyPort);
+            if (busyPoll > 0)
+                awaitListening(proxyPort + 1);
+            targetPort = proxyPort;
+        }
+
+        ScheduledExecutorService ticker = Executors.newScheduledThreadPool(2, threadFactory("lt-ticker"));
+        ExecutorService botExecutor = Executors.newCachedThreadPool(threadFactory("lt-bot"));
+        List<BotClient> clients = new ArrayList<>();
+        for (int i = 0; i < bots; i++) {
+            int port = busyPoll > 0 && i % 2 == 1 ? proxyPort + 1 : targetPort;
+            BotClient bot = new BotClient("127.0.0.1", port, "Bot" + i, ticker);
+            clients.add(bot);
+            botExecutor.submit(bot);
+        }
+
+        Thread.sleep(warmup * 1000L);
+        int connected = 0;
+        for (BotClient bot : clients) {
+            bot.resetLatency();
+            if (bot.isLoggedIn())
+                connected++;
+        }
+        System.out.println("[*] " + connected + "/" + bots + " bots connectés, mesure pendant " + duration + "s...");
+
+        // Rafale de logins pendant la mesure: les sessions établies ne doivent pas la sentir
+        List<BotClient> flooders = new CopyOnWriteArrayList<>();
+        if (flood > 0) {
+            AtomicInteger floodIndex = new AtomicInteger();
+            int perTick = Math.max(1, flood / 10);
+            int floodPort = targetPort;
+            ticker.scheduleAtFixedRate(() -> {
+                for (int i = 0; i < perTick; i++) {
+                    BotClient flooder = new BotClient("127.0.0.1", floodPort, "Flood" + floodIndex.incrementAndGet(),
+                            ticker, true);
+                    flooders.add(flooder);
+                    botExecutor.submit(flooder);
+                }
+            }, 0, 100, TimeUnit.MILLISECONDS);
+        }
+
+        long startPackets = totalPackets(clients);
+        long startBytes = totalBytes(clients);
+        Map<Long, Long> startCpu = proxyThreadCpu();
+        long start = System.nanoTime();
+
+        Thread.sleep(duration * 1000L);
+
+        long elapsed = System.nanoTime() - start;
+        Map<Long, Long> endCpu = proxyThreadCpu();
+        long packets = totalPackets(clients) - startPackets;
+        long bytes = totalBytes(clients) - startBytes;
+
+        LatencyHistogram latency = new LatencyHistogram();
+        LatencyHistogram calmLatency = new LatencyHistogram();
+        LatencyHistogram relayLatency = new LatencyHistogram();
+        LatencyHistogram busyPollLatency = new LatencyHistogram();
+        long loginTotal = 0;
+        for (int i = 0; i < clients.size(); i++) {
+            BotClient bot = clients.get(i);
+            latency.add(bot.getLatency());
+            (i % 2 == 1 ? busyPollLatency : relayLatency).add(bot.getLatency());
+            if (bot.getChunksReceived() == 0)
+                calmLatency.add(bot.getLatency());
+            loginTotal += bot.getLoginNanos();
+        }
+
+        long cpuNanos = 0;
+        for (Map.Entry<Long, Long> entry : endCpu.entrySet()) {
+            cpuNanos += entry.getValue() - startCpu.getOrDefault(entry.getKey(), 0L);
+        }
+
+        double seconds = elapsed / 1e9;
+        System.out.println();
+        System.out.println("=============== Résultats " + (direct ? "(direct, sans proxy)" : "(via proxy)")
+                + " ===============");
+        System.out.printf("Sessions:        %d/%d%n", connected, bots);
+        System.out.printf("Login moyen:     %.2f ms%n", connected > 0 ? loginTotal / 1e6 / connected : 0.0);
+        System.out.printf("Débit:           %.0f pkt/s  |  %.2f MB/s%n", packets / seconds,
+                bytes / seconds / (1024 * 1024));
+        System.out.printf("Mouvements C2S:  %d reçus par le serveur%n", server.getMovementsReceived());
+        System.out.printf("Latence sonde:   p50=%.1f µs  p90=%.1f µs  p99=%.1f µs  p99.9=%.1f µs  max=%.1f µs (n=%d)%n",
+                latency.percentile(50) / 1e3, latency.percentile(90) / 1e3, latency.percentile(99) / 1e3,
+                latency.percentile(99.9) / 1e3, latency.max() / 1e3, latency.count());
+        if (busyPoll > 0) {
+            printLatency("Latence relay:   ", relayLatency);
+            printLatency("Latence busy:    ", busyPollLatency);
+            printComparison(relayLatency, busyPollLatency);
+        }
+        if (storm > 0) {
+            // Sessions sans chunks: ce que la rafale des autres leur coûte
+            System.out.printf("Latence calmes:  p50=%.1f µs  p90=%.1f µs  p99=%.1f µs  p99.9=%.1f µs  max=%.1f µs (n=%d)%n",
+                    calmLatency.percentile(50) / 1e3, calmLatency.percentile(90) / 1e3,
+                    calmLatency.percentile(99) / 1e3, calmLatency.percentile(99.9) / 1e3, calmLatency.max() / 1e3,
+                    calmLatency.count());
+        }
+        if (flood > 0) {
+            int floodLogins = 0;
+            int floodRefused = 0;
+            for (BotClient flooder : flooders) {
+                if (flooder.isLoggedIn())
+                    floodLogins++;
+                else if (flooder.getDisconnectReason() != null)
+                    floodRefused++;
+            }
+            System.out.printf("Flood:           %d tentatives  |  %d logins  |  %d refus propres%n", flooders.size(),
+                    floodLogins, floodRefused);
+        }
+        if (proxy != null) {
+            System.out.println("Ordonnanceur:    " + proxy.getScheduler());
+            System.out.println("Zlib:            " + ProxySession.getZlibOffload());
+            System.out.println("Threads:         " + ProxySession.getRelayExecutor());
+            System.out.println("Mémoire:         " + proxy.getListeners().get(0).memoryReport() + " | "
+                    + ProxySession.getBufferPool());
+            if (busyPoll > 0)
+                System.out.println("Busy-poll:       " + proxy.getListeners().get(1).getBusyPoll());
+            if (SessionArena.ENABLED)
+                System.out.println("Arène:           " + SessionArena.stats());
+        }
+        if (!direct && connected > 0) {
+            double cpuPerSession = cpuNanos / seconds / connected / 1e6;
+            System.out.printf("CPU proxy:       %.1f ms/s total  |  %.3f ms/s par session (%.2f%% d'un cœur)%n",
+                    cpuNanos / seconds / 1e6, cpuPerSession, cpuPerSession / 10.0);
+        }
+
+        for (BotClient bot : clients)
+            bot.stop();
+        ticker.shutdownNow();
+        botExecutor.shutdownNow();
+        if (proxy != null)
+            proxy.stop();
+        server.stop();
+        System.exit(0);
+    }
+
+    private static ProxyConfig.ListenerConfig listener(String name, int port, int serverPort, long busyPollMicros) {
+        return new ProxyConfig.ListenerConfig(name, port,
+                Collections.singletonList(InetSocketAddress.createUnresolved("127.0.0.1", serverPort)),
+                Collections.emptyMap(), RoutingTable.Balance.LEAST_SESSIONS, null, 1.0, 1.0, busyPollMicros);
+    }
+
+    private static void printLatency(String label, LatencyHistogram latency) {
+        System.out.printf("%sp50=%.1f µs  p90=%.1f µs  p99=%.1f µs  p99.9=%.1f µs  max=%.1f µs (n=%d)%n", label,
+                latency.percentile(50) / 1e3, latency.percentile(90) / 1e3, latency.percentile(99) / 1e3,
+                latency.percentile(99.9) / 1e3, latency.max() / 1e3, latency.count());
+    }
+
+    /**
+     * Part des paquets par tranche de latence (puissances de 2 en µs), relay
+     * et busy-poll côte à côte
+     */
+    private static void printComparison(LatencyHistogram relay, LatencyHistogram busy) {
+        System.out.println("Histogramme:     tranche        relay   busy-poll");
+        long previousRelay = 0;
+        long previousBusy = 0;
+        long lower = 0;
+        for (long upper = 32; upper <= 32768; upper <<= 1) {
+            boolean last = upper == 32768;
+            long relayCount = last ? relay.count() : relay.countAtOrBelow(upper * 1000 - 1);
+            long busyCount = last ? busy.count() : busy.countAtOrBelow(upper * 1000 - 1);
+            String range = last ? String.format(">= %d µs", lower) : String.format("%d-%d µs", lower, upper);
+            System.out.printf("                 %-13s %6.1f%%  %6.1f%%%n", range,
+                    share(relayCount - previousRelay, relay.count()), share(busyCount - previousBusy, busy.count()));
+            previousRelay = relayCount;
+            previousBusy = busyCount;
+            lower = upper;
+        }
+    }
+
+    private static double share(long count, long total) {
+        return total > 0 ? count * 100.0 / total : 0.0;
+    }
+
+    /**
+     * CPU cumulé des threads vivants hors harness (threads du proxy)
+     */
+    private static Map<Long, Long> proxyThreadCpu() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Map<Long, Long> cpu = new HashMap<>();
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info == null || info.getThreadName().startsWith(THREAD_PREFIX)
+                    || info.getThreadName().equals("main"))
+                continue;
+            long time = threads.getThreadCpuTime(info.getThreadId());
+            if (time > 0)
+                cpu.put(info.getThreadId(), time);
+        }
+        return cpu;
+    }
+
+    private static long totalPackets(List<BotClient> clients) {
+        long total = 0;
+        for (BotClient bot : clients)
+            total += bot.getPacketsReceived();
+        return total;
+    }
+
+    private static long totalBytes(List<BotClient> clients) {
+        long total = 0;
+        for (BotClient bot : clients)
+            total += bot.getBytesReceived();
+        return total;
+    }
+
+    static void awaitListening(int port) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            try (Socket probe = new Socket()) {
+                probe.connect(new InetSocketAddress("127.0.0.1", port), 100);
+                return;
+            } catch (Exception e) {
+                Thread.sleep(50);
+            }
+        }
+        throw new IllegalStateException("Le proxy n'écoute pas sur " + port);
+    }
+
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--"))
+                continue;
+            String key = args[i].substring(2);
+            if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                options.put(key, args[++i]);
+            } else {
+                options.put(key, "true");
+            }
+        }
+        return options;
+    }
+
+    static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package com.reverseaz.loadtest;
+
+import com.reverseaz.MinecraftProxy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Mesure le temps Handshake → Login Success à travers le proxy en mode
+ * premium, sous logins concurrents, avec un serveur de session stub local
+ * dont la latence est injectée
+ *
+ * Usage: java -cp loadtest/target/loadtest.jar com.reverseaz.loadtest.LoginBenchmark [options]
+ * --logins N (200) --concurrency N (20) --warmup N (20) --stub-latency ms (50)
+ * --stub-jitter ms (0) --compression seuil (256) --proxy-port port (25566)
+ */
+public class LoginBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadTest.parseOptions(args);
+        int logins = Integer.parseInt(options.getOrDefault("logins", "200"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "20"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "20"));
+        long stubLatency = Long.parseLong(options.getOrDefault("stub-latency", "50"));
+        long stubJitter = Long.parseLong(options.getOrDefault("stub-jitter", "0"));
+        int compression = Integer.parseInt(options.getOrDefault("compression", "256"));
+        int proxyPort = Integer.parseInt(options.getOrDefault("proxy-port", "25566"));
+
+        StubSessionServer stub = new StubSessionServer(stubLatency, stubJitter);
+        String stubUrl = stub.start();
+        System.setProperty("reverseaz.sessionServer", stubUrl + StubSessionServer.JOIN_PATH);
+        System.setProperty("reverseaz.profileApi", stubUrl + StubSessionServer.PROFILE_PATH);
+        if (System.getProperty("reverseaz.sessions.perIpRate") == null)
+            System.setProperty("reverseaz.sessions.perIpRate", "0");
+
+        StandInServer server = new StandInServer(compression, true, 0, 0);
+        int serverPort = server.start();
+
+        MinecraftProxy proxy = new MinecraftProxy(proxyPort, "127.0.0.1", serverPort, "stub-token");
+        Thread proxyThread = new Thread(proxy::start, "proxy-accept");
+        proxyThread.setDaemon(true);
+        proxyThread.start();
+        LoadTest.awaitListening(proxyPort);
+
+        System.out.println("[*] Stub session server " + stubUrl + " (latence " + stubLatency + "±" + stubJitter
+                + " ms), " + logins + " logins, concurrence " + concurrency);
+
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency, LoadTest.threadFactory("lt-login"));
+        runLogins(pool, proxyPort, warmup, "Warmup");
+        long start = System.nanoTime();
+        LatencyHistogram histogram = runLogins(pool, proxyPort, logins, "Bot");
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println();
+        System.out.println("=============== Time-to-Play (Handshake → Login Success) ===============");
+        System.out.printf("Logins réussis:  %d/%d en %.2f s (%.1f logins/s)%n", histogram.count(), logins, seconds,
+                histogram.count() / seconds);
+        System.out.printf("Latence login:   p50=%.2f ms  p90=%.2f ms  p99=%.2f ms  max=%.2f ms%n",
+                histogram.percentile(50) / 1e6, histogram.percentile(90) / 1e6, histogram.percentile(99) / 1e6,
+                histogram.max() / 1e6);
+        System.out.printf("Stub:            %d profile, %d join%n", stub.getProfileRequests(), stub.getJoinRequests());
+
+        pool.shutdownNow();
+        proxy.stop();
+        server.stop();
+        stub.stop();
+        System.exit(0);
+    }
+
+    private static LatencyHistogram runLogins(ExecutorService pool, int proxyPort, int count, String prefix)
+            throws Exception {
+        List<BotClient> bots = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            BotClient bot = new BotClient("127.0.0.1", proxyPort, prefix + i, null, true);
+            bots.add(bot);
+            futures.add(pool.submit(bot));
+        }
+        for (Future<?> future : futures)
+            future.get();
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (BotClient bot : bots) {
+            if (bot.isLoggedIn())
+                histogram.record(bot.getLoginNanos());
+        }
+        return histogram;
+    }
+}
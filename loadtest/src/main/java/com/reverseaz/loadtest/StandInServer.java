@@ -0,0 +1,308 @@
+package com.reverseaz.loadtest;
+
+import com.reverseaz.packet.PacketBuffer;
+
+import javax.crypto.Cipher;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serveur Minecraft 1.9.4 (protocol 110) minimal pour les tests de charge
+ *
+ * Login: Handshake → Login Start → [Encryption Request/Response] → [Set
+ * Compression] → Login Success, puis un flux Play configurable (chunks,
+ * mouvements d'entités, vélocités, keepalives) cadencé à 20 ticks/s, avec un
+ * paquet sonde horodaté par tick pour mesurer la latence de bout en bout.
+ */
+public class StandInServer {
+
+    // Clientbound (Play)
+    static final int PACKET_PLUGIN_MESSAGE = 0x18;
+    static final int PACKET_KEEP_ALIVE = 0x1F;
+    static final int PACKET_CHUNK_DATA = 0x20;
+    static final int PACKET_ENTITY_RELATIVE_MOVE = 0x25;
+    static final int PACKET_ENTITY_VELOCITY = 0x3B;
+    // Serverbound (Play)
+    static final int PACKET_PLAYER_POSITION = 0x0C;
+
+    /** Canal du Plugin Message sonde: payload = nanoTime d'émission */
+    static final String PROBE_CHANNEL = "LT|Probe";
+
+    private static final int TICKS_PER_SECOND = 20;
+
+    private final int compressionThreshold;
+    private final boolean encryption;
+    private final int packetsPerSecond;
+    private final int chunkPercent;
+    private volatile int maxChunkBytes = 8192 + 32768;
+    // > 0: seules les N premières sessions reçoivent des chunks
+    private volatile int stormSessions;
+    private final AtomicInteger stormAssigned = new AtomicInteger();
+    private final ExecutorService executor;
+    private final KeyPair keyPair;
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final AtomicLong movementsReceived = new AtomicLong();
+    private final AtomicLong packetsSent = new AtomicLong();
+
+    private volatile boolean running = true;
+    private ServerSocket serverSocket;
+
+    /**
+     * @param compressionThreshold seuil Set Compression, -1 pour désactiver
+     * @param encryption           envoyer une Encryption Request (clé RSA locale)
+     * @param packetsPerSecond     paquets Play émis par session et par seconde
+     * @param chunkPercent         part de Chunk Data dans le flux (0-100)
+     */
+    public StandInServer(int compressionThreshold, boolean encryption, int packetsPerSecond, int chunkPercent)
+            throws Exception {
+        this.compressionThreshold = compressionThreshold;
+        this.encryption = encryption;
+        this.packetsPerSecond = packetsPerSecond;
+        this.chunkPercent = chunkPercent;
+        this.executor = Executors.newCachedThreadPool(LoadTest.threadFactory("lt-server"));
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        this.keyPair = generator.generateKeyPair();
+    }
+
+    /**
+     * Taille max d'un Chunk Data (8 Ko min), 40 Ko par défaut
+     */
+    public void setMaxChunkBytes(int maxChunkBytes) {
+        this.maxChunkBytes = Math.max(8193, maxChunkBytes);
+    }
+
+    /**
+     * Limite les chunks aux N premières sessions (rafale), les autres ne
+     * reçoivent que des petits paquets
+     */
+    public void setStormSessions(int stormSessions) {
+        this.stormSessions = stormSessions;
+    }
+
+    /**
+     * Démarre l'écoute sur un port éphémère de loopback
+     *
+     * @return le port d'écoute
+     */
+    public int start() throws IOException {
+        serverSocket = new ServerSocket(0, 512, InetAddress.getLoopbackAddress());
+        executor.submit(this::acceptLoop);
+        return serverSocket.getLocalPort();
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        executor.shutdownNow();
+    }
+
+    public int getSessions() {
+        return sessions.get();
+    }
+
+    public long getMovementsReceived() {
+        return movementsReceived.get();
+    }
+
+    public long getPacketsSent() {
+        return packetsSent.get();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                executor.submit(() -> handle(socket));
+            } catch (SocketException e) {
+                return;
+            } catch (IOException e) {
+                System.err.println("[StandIn] Erreur accept: " + e.getMessage());
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (Connection conn = new Connection(socket)) {
+            Connection.Packet handshake = conn.readPacket();
+            if (handshake == null)
+                return;
+            handshake.payload.readVarInt(); // protocol
+            Connection.readString(handshake.payload);
+            handshake.payload.readShort();
+            int nextState = handshake.payload.readVarInt();
+
+            if (nextState == 1) {
+                handleStatus(conn);
+                return;
+            }
+
+            Connection.Packet loginStart = conn.readPacket();
+            if (loginStart == null)
+                return;
+            String username = Connection.readString(loginStart.payload);
+
+            if (encryption && !handleEncryption(conn))
+                return;
+
+            if (compressionThreshold >= 0) {
+                PacketBuffer setCompression = new PacketBuffer(5);
+                setCompression.writeVarInt(compressionThreshold);
+                conn.writePacket(0x03, setCompression.toArray(), true);
+                conn.enableCompression(compressionThreshold);
+            }
+
+            PacketBuffer success = new PacketBuffer(64);
+            Connection.writeString(success, UUID.nameUUIDFromBytes(username.getBytes()).toString());
+            Connection.writeString(success, username);
+            conn.writePacket(0x02, success.toArray(), true);
+
+            sessions.incrementAndGet();
+            try {
+                executor.submit(() -> readMovements(conn));
+                streamPlay(conn);
+            } finally {
+                sessions.decrementAndGet();
+            }
+        } catch (Exception e) {
+            if (running)
+                System.err.println("[StandIn] Session terminée: " + e.getMessage());
+        }
+    }
+
+    private void handleStatus(Connection conn) throws IOException {
+        Connection.Packet request = conn.readPacket();
+        if (request == null)
+            return;
+        PacketBuffer response = new PacketBuffer(256);
+        Connection.writeString(response, "{\"version\":{\"name\":\"1.9.4\",\"protocol\":110},"
+                + "\"players\":{\"max\":1000,\"online\":" + sessions.get() + "},"
+                + "\"description\":{\"text\":\"ReverseAZ stand-in\"}}");
+        conn.writePacket(0x00, response.toArray(), true);
+
+        Connection.Packet ping = conn.readPacket();
+        if (ping != null)
+            conn.writePacket(0x01, ping.payload.readBytes(ping.payload.readableBytes()), true);
+    }
+
+    private boolean handleEncryption(Connection conn) throws Exception {
+        byte[] publicKey = keyPair.getPublic().getEncoded();
+        byte[] verifyToken = new byte[4];
+        new SecureRandom().nextBytes(verifyToken);
+
+        PacketBuffer request = new PacketBuffer(publicKey.length + 16);
+        Connection.writeString(request, "");
+        request.writeVarInt(publicKey.length);
+        request.writeBytes(publicKey, 0, publicKey.length);
+        request.writeVarInt(verifyToken.length);
+        request.writeBytes(verifyToken, 0, verifyToken.length);
+        conn.writePacket(0x01, request.toArray(), true);
+
+        Connection.Packet response = conn.readPacket();
+        if (response == null || response.id != 0x01)
+            return false;
+        byte[] encryptedSecret = response.payload.readBytes(response.payload.readVarInt());
+        byte[] encryptedToken = response.payload.readBytes(response.payload.readVarInt());
+
+        Cipher rsa = Cipher.getInstance("RSA/ECB/PKCS1Padding");
+        rsa.init(Cipher.DECRYPT_MODE, keyPair.getPrivate());
+        byte[] sharedSecret = rsa.doFinal(encryptedSecret);
+        rsa.init(Cipher.DECRYPT_MODE, keyPair.getPrivate());
+        if (!Arrays.equals(verifyToken, rsa.doFinal(encryptedToken))) {
+            System.err.println("[StandIn] Verify token invalide");
+            return false;
+        }
+
+        conn.enableEncryption(sharedSecret);
+        return true;
+    }
+
+    /**
+     * Émet le flux Play à cadence fixe jusqu'à fermeture de la connexion
+     */
+    private void streamPlay(Connection conn) throws Exception {
+        Random random = new Random();
+        long tickNanos = 1_000_000_000L / TICKS_PER_SECOND;
+        int perTick = Math.max(0, packetsPerSecond / TICKS_PER_SECOND);
+        long nextTick = System.nanoTime();
+        int tick = 0;
+        int storm = stormSessions;
+        int chunks = storm <= 0 || stormAssigned.getAndIncrement() < storm ? chunkPercent : 0;
+
+        while (running) {
+            for (int i = 0; i < perTick; i++) {
+                writeRandomPacket(conn, random, tick, chunks);
+            }
+
+            PacketBuffer probe = new PacketBuffer(24);
+            Connection.writeString(probe, PROBE_CHANNEL);
+            Connection.writeLong(probe, System.nanoTime());
+            conn.writePacket(PACKET_PLUGIN_MESSAGE, probe.toArray(), true);
+            packetsSent.addAndGet(perTick + 1);
+
+            tick++;
+            nextTick += tickNanos;
+            long sleep = nextTick - System.nanoTime();
+            if (sleep > 0)
+                Thread.sleep(sleep / 1_000_000L, (int) (sleep % 1_000_000L));
+        }
+    }
+
+    private void writeRandomPacket(Connection conn, Random random, int tick, int chunkPercent) throws IOException {
+        int roll = random.nextInt(100);
+        if (roll < chunkPercent) {
+            byte[] chunk = new byte[8192 + random.nextInt(Math.max(1, maxChunkBytes - 8192))];
+            for (int i = 0; i < chunk.length; i++)
+                chunk[i] = (byte) ((i & 0x3F) == 0 ? random.nextInt(256) : (i >> 6) & 0x0F);
+            conn.writePacket(PACKET_CHUNK_DATA, chunk, false);
+        } else if (roll < chunkPercent + 10) {
+            PacketBuffer velocity = new PacketBuffer(12);
+            velocity.writeVarInt(random.nextInt(1000));
+            velocity.writeShort((short) random.nextInt(8000));
+            velocity.writeShort((short) random.nextInt(8000));
+            velocity.writeShort((short) random.nextInt(8000));
+            conn.writePacket(PACKET_ENTITY_VELOCITY, velocity.toArray(), false);
+        } else if (roll < chunkPercent + 12) {
+            PacketBuffer keepAlive = new PacketBuffer(5);
+            keepAlive.writeVarInt(tick);
+            conn.writePacket(PACKET_KEEP_ALIVE, keepAlive.toArray(), false);
+        } else {
+            PacketBuffer move = new PacketBuffer(12);
+            move.writeVarInt(random.nextInt(1000));
+            move.writeShort((short) random.nextInt(256));
+            move.writeShort((short) random.nextInt(256));
+            move.writeShort((short) random.nextInt(256));
+            move.writeByte(1);
+            conn.writePacket(PACKET_ENTITY_RELATIVE_MOVE, move.toArray(), false);
+        }
+    }
+
+    private void readMovements(Connection conn) {
+        try {
+            Connection.Packet packet;
+            while ((packet = conn.readPacket()) != null) {
+                if (packet.id == PACKET_PLAYER_POSITION)
+                    movementsReceived.incrementAndGet();
+            }
+        } catch (IOException ignored) {
+        }
+        conn.close();
+    }
+}
@@ -0,0 +1,109 @@
+package com.reverseaz.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stub HTTP local des endpoints Mojang (profil + session join) avec latence
+ * injectée, pour mesurer la phase de login sans dépendre d'internet
+ *
+ * GET /minecraft/profile → {"id":..., "name":...}
+ * POST /session/minecraft/join → 204
+ */
+public class StubSessionServer {
+
+    static final String PROFILE_PATH = "/minecraft/profile";
+    static final String JOIN_PATH = "/session/minecraft/join";
+
+    private static final String PLAYER_UUID = "0f1e2d3c4b5a69788796a5b4c3d2e1f0";
+    private static final String PLAYER_NAME = "StubPlayer";
+
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final ExecutorService executor;
+    private final AtomicLong profileRequests = new AtomicLong();
+    private final AtomicLong joinRequests = new AtomicLong();
+    private HttpServer server;
+
+    /**
+     * @param latencyMillis latence fixe ajoutée à chaque réponse
+     * @param jitterMillis  jitter uniforme ajouté en plus (0 pour aucun)
+     */
+    public StubSessionServer(long latencyMillis, long jitterMillis) {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.executor = Executors.newCachedThreadPool(LoadTest.threadFactory("lt-stub-http"));
+    }
+
+    /**
+     * @return l'URL de base, ex: http://127.0.0.1:54321
+     */
+    public String start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 512);
+        server.createContext(PROFILE_PATH, this::handleProfile);
+        server.createContext(JOIN_PATH, this::handleJoin);
+        server.setExecutor(executor);
+        server.start();
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public long getProfileRequests() {
+        return profileRequests.get();
+    }
+
+    public long getJoinRequests() {
+        return joinRequests.get();
+    }
+
+    private void handleProfile(HttpExchange exchange) throws IOException {
+        profileRequests.incrementAndGet();
+        delay();
+        byte[] body = ("{\"id\":\"" + PLAYER_UUID + "\",\"name\":\"" + PLAYER_NAME + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void handleJoin(HttpExchange exchange) throws IOException {
+        joinRequests.incrementAndGet();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] drain = new byte[512];
+            while (in.read(drain) != -1) {
+                // Vider la requête pour garder la connexion réutilisable
+            }
+        }
+        delay();
+        exchange.sendResponseHeaders(204, -1);
+        exchange.close();
+    }
+
+    private void delay() {
+        long millis = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        if (millis <= 0)
+            return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,9 +1,16 @@
 package com.reverseaz;
 
 import com.reverseaz.auth.MojangAuth;
+import com.reverseaz.net.RoutingTable;
+import com.reverseaz.net.SessionArena;
+import com.reverseaz.net.SessionScheduler;
 import java.io.*;
 import java.net.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -13,65 +20,129 @@ import java.util.concurrent.Executors;
  * Supporte l'encryption pour les serveurs online-mode
  * 
  * Usage: java -jar reverseaz-1.0.jar <server_ip> <server_port> [token]
+ *        java -jar reverseaz-1.0.jar --config proxy.properties
+ *
+ * Avec un fichier de config, plusieurs listeners (port local -> serveur) tournent
+ * dans le même processus et partagent l'ordonnanceur de sessions.
  */
 public class MinecraftProxy {
 
     private static final int LOCAL_PORT = 25566;
-    private final String targetHost;
-    private final int targetPort;
+    private static final long STATUS_TTL_MS = Long.getLong("reverseaz.statusTtlMs", 5000);
     private final ExecutorService executor;
-    private final VelocityModifier velocityModifier;
-    private final MojangAuth auth;
+    private final SessionScheduler scheduler;
+    private final List<ProxyListener> listeners = new ArrayList<>();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final File configFile;
     private volatile boolean running = true;
+    // Listener visé par les commandes console
+    private volatile ProxyListener current;
 
     public MinecraftProxy(String targetHost, int targetPort, String accessToken) {
-        this.targetHost = targetHost;
-        this.targetPort = targetPort;
+        this(LOCAL_PORT, targetHost, targetPort, accessToken);
+    }
+
+    public MinecraftProxy(int localPort, String targetHost, int targetPort, String accessToken) {
+        this(new ProxyConfig(Collections.singletonList(new ProxyConfig.ListenerConfig("default", localPort,
+                Collections.singletonList(InetSocketAddress.createUnresolved(targetHost, targetPort)),
+                Collections.emptyMap(), RoutingTable.Balance.LEAST_SESSIONS, accessToken, 1.0, 1.0,
+                ProxyConfig.DEFAULT_BUSY_POLL_US))), null);
+    }
+
+    /**
+     * @param configFile fichier d'origine, relu par la commande "reload" (ou null)
+     */
+    public MinecraftProxy(ProxyConfig config, File configFile) {
         this.executor = Executors.newCachedThreadPool();
-        this.velocityModifier = new VelocityModifier();
-        this.auth = new MojangAuth();
-
-        // Configurer l'auth si token fourni
-        if (accessToken != null && !accessToken.isEmpty()) {
-            auth.setAccessToken(accessToken);
-            System.out.println("[*] Token configuré, récupération du profil...");
-            if (auth.fetchProfile()) {
-                System.out.println("[*] Compte premium: " + auth.getPlayerName());
-            } else {
-                System.out.println("[!] Échec récupération profil - mode offline");
+        this.scheduler = new SessionScheduler();
+        this.configFile = configFile;
+        for (ProxyConfig.ListenerConfig lc : config.getListeners()) {
+            listeners.add(new ProxyListener(lc, STATUS_TTL_MS, scheduler));
+        }
+        this.current = listeners.get(0);
+    }
+
+    /**
+     * Relit le fichier de config et publie les nouvelles tables de routage.
+     * Ports, tokens et KB ne changent qu'au redémarrage.
+     */
+    private void reloadRoutes() {
+        if (configFile == null) {
+            System.out.println("[!] Pas de fichier de config (--config)");
+            return;
+        }
+        ProxyConfig config;
+        try {
+            config = ProxyConfig.load(configFile);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("[!] Config invalide, routes inchangées: " + e.getMessage());
+            return;
+        }
+        for (ProxyConfig.ListenerConfig lc : config.getListeners()) {
+            for (ProxyListener listener : listeners) {
+                if (listener.getName().equals(lc.name)) {
+                    listener.reloadRoutes(lc);
+                    System.out.println("[*] [" + lc.name + "] Routes: " + listener.getRouter());
+                }
             }
         }
     }
 
+    /**
+     * Ouvre tous les ports puis sert jusqu'à stop()
+     */
     public void start() {
         // Thread pour les commandes console
         executor.submit(this::handleConsoleCommands);
 
-        try (ServerSocket serverSocket = new ServerSocket(LOCAL_PORT)) {
-            printBanner();
-
-            while (running) {
+        try {
+            List<ProxyListener> bound = new ArrayList<>();
+            for (ProxyListener listener : listeners) {
                 try {
-                    Socket clientSocket = serverSocket.accept();
-                    System.out.println("[+] Nouvelle connexion de: " + clientSocket.getInetAddress());
-
-                    // Créer une nouvelle session avec l'auth
-                    ProxySession session = new ProxySession(clientSocket, targetHost, targetPort, velocityModifier,
-                            auth);
-                    executor.submit(session::start);
-
-                } catch (SocketException e) {
-                    if (running) {
-                        System.err.println("[-] Erreur socket: " + e.getMessage());
-                    }
+                    listener.bind();
+                    bound.add(listener);
+                } catch (IOException e) {
+                    System.err.println("[-] [" + listener.getName() + "] Port " + listener.getLocalPort()
+                            + " indisponible: " + e.getMessage());
                 }
             }
-        } catch (IOException e) {
-            System.err.println("[-] Erreur fatale: " + e.getMessage());
-            e.printStackTrace();
+            if (bound.isEmpty()) {
+                System.err.println("[-] Erreur fatale: aucun port d'écoute ouvert");
+                return;
+            }
+
+            printBanner();
+            for (ProxyListener listener : bound) {
+                listener.refreshProfile();
+                executor.submit(listener::acceptLoop);
+            }
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } finally {
-            executor.shutdownNow();
+            stop();
+        }
+    }
+
+    /**
+     * Arrête le proxy: ferme les sockets d'écoute et les sessions en cours
+     */
+    public void stop() {
+        running = false;
+        for (ProxyListener listener : listeners) {
+            listener.close();
         }
+        executor.shutdownNow();
+        scheduler.shutdownNow();
+        stopped.countDown();
+    }
+
+    public SessionScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public List<ProxyListener> getListeners() {
+        return Collections.unmodifiableList(listeners);
     }
 
     private void printBanner() {
@@ -79,10 +150,18 @@ public class MinecraftProxy {
         System.out.println("╔══════════════════════════════════════════════════════════════╗");
         System.out.println("║          ⚡ ReverseAZ - Minecraft 1.9.4 Proxy ⚡              ║");
         System.out.println("╠══════════════════════════════════════════════════════════════╣");
-        System.out.println("║  Proxy:    localhost:" + LOCAL_PORT + "                                   ║");
-        System.out.println("║  Serveur:  " + padRight(targetHost + ":" + targetPort, 48) + " ║");
-        System.out.println("║  Mode:     "
-                + padRight(auth.hasAuth() ? "PREMIUM (" + auth.getPlayerName() + ")" : "OFFLINE", 48) + " ║");
+        if (listeners.size() == 1) {
+            ProxyListener listener = listeners.get(0);
+            System.out.println("║  Proxy:    " + padRight("localhost:" + listener.getLocalPort(), 48) + " ║");
+            System.out.println("║  Serveur:  " + padRight(listener.getRouter().toString(), 48) + " ║");
+            System.out.println("║  Mode:     " + padRight(modeOf(listener.getAuth()), 48) + " ║");
+        } else {
+            for (ProxyListener listener : listeners) {
+                String marker = listener == current ? "*" : " ";
+                System.out.println("║ " + marker + padRight(listener.getName(), 10) + padRight(":" + listener.getLocalPort()
+                        + " -> " + listener.getRouter() + "  " + modeOf(listener.getAuth()), 48) + " ║");
+            }
+        }
         System.out.println("╠══════════════════════════════════════════════════════════════╣");
         System.out.println("║  Commandes KB:                                               ║");
         System.out.println("║    kb <mult>         - KB horizontal (X/Z)                   ║");
@@ -94,10 +173,21 @@ public class MinecraftProxy {
         System.out.println("║  Auth:                                                       ║");
         System.out.println("║    token <bearer>    - Configure le token Mojang             ║");
         System.out.println("║    auth              - Affiche l'état d'authentification     ║");
+        System.out.println("╠══════════════════════════════════════════════════════════════╣");
+        System.out.println("║  Listeners:                                                  ║");
+        System.out.println("║    listeners         - Liste + métriques                     ║");
+        System.out.println("║    memory            - Mémoire tenue par les sessions        ║");
+        System.out.println("║    use <nom>         - Cible des commandes KB/auth           ║");
+        System.out.println("║    reload            - Relit les routes du fichier de config ║");
         System.out.println("╚══════════════════════════════════════════════════════════════╝");
         System.out.println();
     }
 
+    private static String modeOf(MojangAuth auth) {
+        return auth.hasAuth() ? "PREMIUM (" + auth.getPlayerName() + ")"
+                : auth.hasToken() ? "PREMIUM (profil en cours...)" : "OFFLINE";
+    }
+
     private void handleConsoleCommands() {
         Scanner scanner = new Scanner(System.in);
         while (running) {
@@ -115,6 +205,8 @@ public class MinecraftProxy {
 
                 String cmd = parts[0].toLowerCase();
                 String args = parts.length > 1 ? parts[1] : "";
+                VelocityModifier velocityModifier = current.getVelocityModifier();
+                MojangAuth auth = current.getAuth();
 
                 switch (cmd) {
                     case "kb":
@@ -165,12 +257,15 @@ public class MinecraftProxy {
                     case "token":
                         if (!args.isEmpty()) {
                             auth.setAccessToken(args);
+                            auth.warmUp();
                             System.out.println("[*] Token configuré, récupération profil...");
-                            if (auth.fetchProfile()) {
-                                System.out.println("[*] Authentifié: " + auth.getPlayerName());
-                            } else {
-                                System.out.println("[!] Échec récupération profil");
-                            }
+                            auth.fetchProfileAsync().thenAccept(success -> {
+                                if (success) {
+                                    System.out.println("[*] Authentifié: " + auth.getPlayerName());
+                                } else {
+                                    System.out.println("[!] Échec récupération profil");
+                                }
+                            });
                         } else {
                             System.out.println("[!] Usage: token <bearer_token>");
                             System.out.println(
@@ -189,6 +284,47 @@ public class MinecraftProxy {
                         }
                         break;
 
+                    case "listeners":
+                        for (ProxyListener listener : listeners) {
+                            System.out.println("[*] " + (listener == current ? "* " : "  ") + listener.getName() + " :"
+                                    + listener.getLocalPort() + " -> " + listener.getRouter() + " ["
+                                    + modeOf(listener.getAuth()) + "]");
+                            System.out.println("      " + listener.getMetrics());
+                            if (listener.getBusyPoll() != null)
+                                System.out.println("      " + listener.getBusyPoll());
+                        }
+                        System.out.println("[*] Sessions: " + scheduler);
+                        System.out.println("[*] " + ProxySession.getZlibOffload());
+                        break;
+
+                    case "memory":
+                        for (ProxyListener listener : listeners) {
+                            System.out.println("[*] " + listener.getName() + " : " + listener.memoryReport());
+                        }
+                        System.out.println("[*] " + ProxySession.getBufferPool());
+                        System.out.println("[*] " + ProxySession.getZlibPool());
+                        System.out.println("[*] " + ProxySession.getRelayExecutor());
+                        System.out.println("[*] " + SessionArena.stats());
+                        break;
+
+                    case "reload":
+                        reloadRoutes();
+                        break;
+
+                    case "use":
+                        ProxyListener selected = null;
+                        for (ProxyListener listener : listeners) {
+                            if (listener.getName().equals(args))
+                                selected = listener;
+                        }
+                        if (selected != null) {
+                            current = selected;
+                            System.out.println("[*] Commandes -> " + selected.getName());
+                        } else {
+                            System.out.println("[!] Usage: use <nom> (voir 'listeners')");
+                        }
+                        break;
+
                     case "quit":
                     case "exit":
                     case "stop":
@@ -227,10 +363,24 @@ public class MinecraftProxy {
         System.out.println("  ╚═╝  ╚═╝╚══════╝  ╚═══╝  ╚══════╝╚═╝  ╚═╝╚══════╝╚══════╝╚═╝  ╚═╝╚══════╝");
         System.out.println();
 
+        if (args.length == 2 && "--config".equals(args[0])) {
+            ProxyConfig config;
+            try {
+                config = ProxyConfig.load(new File(args[1]));
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("[-] Config invalide: " + e.getMessage());
+                return;
+            }
+            new MinecraftProxy(config, new File(args[1])).start();
+            return;
+        }
+
         if (args.length < 2) {
             System.out.println("Usage: java -jar reverseaz-1.0.jar <server_ip> <server_port> [token]");
+            System.out.println("       java -jar reverseaz-1.0.jar --config proxy.properties");
             System.out.println();
             System.out.println("Arguments:");
+            System.out.println("  --config     Fichier de listeners (listener.<nom>.port / .target / .route.<host> / .token / .kb)");
             System.out.println("  server_ip    IP ou hostname du serveur Minecraft");
             System.out.println("  server_port  Port du serveur (généralement 25565)");
             System.out.println("  token        (Optionnel) Bearer token de minecraft.net pour serveurs online-mode");
@@ -0,0 +1,192 @@
+package com.reverseaz;
+
+import com.reverseaz.net.BusyPoll;
+import com.reverseaz.net.RoutingTable;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Fichier de config multi-listeners (format properties)
+ *
+ * Chaque listener associe un port local à un ou plusieurs serveurs cibles:
+ *
+ * <pre>
+ * listener.hypixel.port=25566
+ * listener.hypixel.target=play.hypixel.net:25565
+ * listener.hypixel.token=eyJhbGciOiJS...   (optionnel)
+ * listener.hypixel.kb=0.8                  (optionnel, KB horizontal)
+ * listener.hypixel.kby=1.0                 (optionnel, KB vertical)
+ * listener.hypixel.busyPollUs=50           (optionnel, attente active avant lecture, µs, 0 à 1000)
+ *
+ * # Routage par hostname du handshake (optionnel), replicas séparés par des virgules
+ * listener.hub.route.eu.example.com=10.0.0.1:25565,10.0.0.2:25565
+ * listener.hub.balance=least-sessions      (ou latency)
+ * </pre>
+ *
+ * target est la route par défaut (hostname sans route); il accepte aussi
+ * plusieurs replicas.
+ */
+public class ProxyConfig {
+
+    private static final String PREFIX = "listener.";
+    private static final String ROUTE = "route.";
+    private static final int DEFAULT_TARGET_PORT = 25565;
+    // Valeur par défaut de busyPollUs (0 = lectures bloquantes classiques)
+    static final long DEFAULT_BUSY_POLL_US = Long.getLong("reverseaz.busyPollUs", 0);
+
+    private final List<ListenerConfig> listeners;
+
+    public ProxyConfig(List<ListenerConfig> listeners) {
+        this.listeners = Collections.unmodifiableList(new ArrayList<>(listeners));
+    }
+
+    public List<ListenerConfig> getListeners() {
+        return listeners;
+    }
+
+    /**
+     * Charge et valide le fichier
+     *
+     * @throws IllegalArgumentException si une entrée est invalide
+     */
+    public static ProxyConfig load(File file) throws IOException {
+        Properties props = new Properties();
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            props.load(reader);
+        }
+        return parse(props);
+    }
+
+    public static ProxyConfig parse(Properties props) {
+        // Noms triés: ordre d'affichage stable
+        SortedSet<String> names = new TreeSet<>();
+        for (String key : props.stringPropertyNames()) {
+            if (!key.startsWith(PREFIX))
+                continue;
+            int dot = key.indexOf('.', PREFIX.length());
+            if (dot < 0)
+                throw new IllegalArgumentException("Clé invalide: " + key);
+            names.add(key.substring(PREFIX.length(), dot));
+        }
+        if (names.isEmpty())
+            throw new IllegalArgumentException("Aucun listener (clés listener.<nom>.port / .target)");
+
+        List<ListenerConfig> listeners = new ArrayList<>();
+        Set<Integer> ports = new HashSet<>();
+        for (String name : names) {
+            String base = PREFIX + name + ".";
+            int port = parsePort(name, props.getProperty(base + "port"));
+            if (!ports.add(port))
+                throw new IllegalArgumentException("Port " + port + " utilisé par plusieurs listeners");
+
+            String target = props.getProperty(base + "target");
+            if (target == null || target.trim().isEmpty())
+                throw new IllegalArgumentException("Listener " + name + ": target manquant");
+            List<InetSocketAddress> targets = parseTargets(name, target);
+
+            Map<String, List<InetSocketAddress>> routes = new HashMap<>();
+            for (String key : props.stringPropertyNames()) {
+                if (key.startsWith(base + ROUTE) && key.length() > base.length() + ROUTE.length()) {
+                    routes.put(key.substring(base.length() + ROUTE.length()),
+                            parseTargets(name, props.getProperty(key)));
+                }
+            }
+            RoutingTable.Balance balance = RoutingTable.Balance.parse(props.getProperty(base + "balance"));
+
+            String token = props.getProperty(base + "token");
+            listeners.add(new ListenerConfig(name, port, targets, routes, balance,
+                    token != null && !token.trim().isEmpty() ? token.trim() : null,
+                    parseMultiplier(name, props.getProperty(base + "kb")),
+                    parseMultiplier(name, props.getProperty(base + "kby")),
+                    parseMicros(name, props.getProperty(base + "busyPollUs"))));
+        }
+        return new ProxyConfig(listeners);
+    }
+
+    /**
+     * "host[:port],host[:port]..." -> adresses non résolues
+     */
+    private static List<InetSocketAddress> parseTargets(String name, String value) {
+        List<InetSocketAddress> targets = new ArrayList<>();
+        for (String part : value.split(",")) {
+            String target = part.trim();
+            if (target.isEmpty())
+                continue;
+            String host = target;
+            int targetPort = DEFAULT_TARGET_PORT;
+            int colon = target.lastIndexOf(':');
+            if (colon > 0) {
+                host = target.substring(0, colon);
+                targetPort = parsePort(name, target.substring(colon + 1));
+            }
+            targets.add(InetSocketAddress.createUnresolved(host, targetPort));
+        }
+        if (targets.isEmpty())
+            throw new IllegalArgumentException("Listener " + name + ": cible vide: " + value);
+        return targets;
+    }
+
+    private static int parsePort(String name, String value) {
+        try {
+            int port = Integer.parseInt(value == null ? "" : value.trim());
+            if (port > 0 && port <= 65535)
+                return port;
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException("Listener " + name + ": port invalide: " + value);
+    }
+
+    private static double parseMultiplier(String name, String value) {
+        if (value == null || value.trim().isEmpty())
+            return 1.0;
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Listener " + name + ": multiplicateur invalide: " + value);
+        }
+    }
+
+    private static long parseMicros(String name, String value) {
+        if (value == null || value.trim().isEmpty())
+            return DEFAULT_BUSY_POLL_US;
+        try {
+            long micros = Long.parseLong(value.trim());
+            if (micros >= 0 && micros <= BusyPoll.MAX_BUDGET_MICROS)
+                return micros;
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException("Listener " + name + ": busyPollUs invalide: " + value);
+    }
+
+    /**
+     * Un port local -> serveur(s) cible(s)
+     */
+    public static class ListenerConfig {
+        public final String name;
+        public final int localPort;
+        public final List<InetSocketAddress> targets;
+        public final Map<String, List<InetSocketAddress>> routes;
+        public final RoutingTable.Balance balance;
+        public final String accessToken;
+        public final double horizontalMultiplier;
+        public final double verticalMultiplier;
+        public final long busyPollMicros;
+
+        public ListenerConfig(String name, int localPort, List<InetSocketAddress> targets,
+                Map<String, List<InetSocketAddress>> routes, RoutingTable.Balance balance, String accessToken,
+                double horizontalMultiplier, double verticalMultiplier, long busyPollMicros) {
+            this.name = name;
+            this.localPort = localPort;
+            this.targets = Collections.unmodifiableList(new ArrayList<>(targets));
+            this.routes = Collections.unmodifiableMap(new HashMap<>(routes));
+            this.balance = balance;
+            this.accessToken = accessToken;
+            this.horizontalMultiplier = horizontalMultiplier;
+            this.verticalMultiplier = verticalMultiplier;
+            this.busyPollMicros = busyPollMicros;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.reverseaz;
+
+import com.reverseaz.auth.MojangAuth;
+import com.reverseaz.net.BusyPoll;
+import com.reverseaz.net.ListenerMetrics;
+import com.reverseaz.net.Router;
+import com.reverseaz.net.SessionArena;
+import com.reverseaz.net.SessionScheduler;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Un port d'écoute relié à un ou plusieurs serveurs cibles (routage par
+ * hostname), avec son propre modificateur de KB, son auth et ses métriques.
+ * Les sessions passent par l'ordonnanceur partagé du processus.
+ */
+public class ProxyListener {
+
+    private final String name;
+    private final int localPort;
+    private final Router router;
+    private final VelocityModifier velocityModifier;
+    private final MojangAuth auth;
+    private final ListenerMetrics metrics = new ListenerMetrics();
+    private final SessionScheduler scheduler;
+    private final BusyPoll busyPoll; // null: lectures bloquantes classiques
+    // Sessions démarrées, pour le rapport mémoire
+    private final Set<ProxySession> sessions = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean running = true;
+    private volatile ServerSocket serverSocket;
+
+    public ProxyListener(ProxyConfig.ListenerConfig config, long statusTtlMillis, SessionScheduler scheduler) {
+        this.name = config.name;
+        this.localPort = config.localPort;
+        this.scheduler = scheduler;
+        this.velocityModifier = new VelocityModifier();
+        velocityModifier.setHorizontalMultiplier(config.horizontalMultiplier);
+        velocityModifier.setMultiplierY(config.verticalMultiplier);
+        this.auth = new MojangAuth();
+        this.router = new Router(statusTtlMillis);
+        this.busyPoll = config.busyPollMicros > 0 ? new BusyPoll(config.busyPollMicros) : null;
+        router.update(config.routes, config.targets, config.balance);
+
+        String accessToken = config.accessToken;
+
+        // Configurer l'auth si token fourni (profil en cache disque si disponible,
+        // le fetch réel est lancé en arrière-plan une fois le port ouvert)
+        if (accessToken != null && !accessToken.isEmpty()) {
+            auth.setAccessToken(accessToken);
+            auth.warmUp();
+        }
+    }
+
+    /**
+     * Ouvre le port d'écoute (erreur immédiate si le port est pris)
+     */
+    public void bind() throws IOException {
+        serverSocket = new ServerSocket(localPort);
+    }
+
+    /**
+     * Boucle d'acceptation, jusqu'à close()
+     */
+    public void acceptLoop() {
+        ServerSocket socket = serverSocket;
+        try {
+            while (running) {
+                try {
+                    Socket clientSocket = socket.accept();
+                    System.out.println("[+] [" + name + "] Nouvelle connexion de: " + clientSocket.getInetAddress());
+
+                    // Admission (limites globales et par IP) avant toute allocation de session
+                    scheduler.submit(clientSocket, () -> runSession(clientSocket), metrics);
+                } catch (SocketException e) {
+                    if (running) {
+                        System.err.println("[-] [" + name + "] Erreur socket: " + e.getMessage());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (running) {
+                System.err.println("[-] [" + name + "] Erreur fatale: " + e.getMessage());
+                e.printStackTrace();
+            }
+        } finally {
+            close();
+        }
+    }
+
+    private void runSession(Socket clientSocket) {
+        ProxySession session = new ProxySession(clientSocket, router, velocityModifier, auth, metrics, busyPoll);
+        sessions.add(session);
+        try {
+            session.start();
+        } finally {
+            sessions.remove(session);
+        }
+    }
+
+    /**
+     * Mémoire tenue par les sessions en cours (tampons empruntés + files de
+     * sortie), en moyenne par session et pour les sessions en Play
+     */
+    public String memoryReport() {
+        int count = 0;
+        int playing = 0;
+        long total = 0;
+        long playingTotal = 0;
+        long offHeap = 0;
+        for (ProxySession session : sessions) {
+            long bytes = session.getBufferedBytes();
+            offHeap += session.getOffHeapBytes();
+            count++;
+            total += bytes;
+            if (session.isPlaying()) {
+                playing++;
+                playingTotal += bytes;
+            }
+        }
+        String report = String.format("sessions=%d tenu=%.1f Ko (moy. %d o) | en Play=%d (moy. %d o)", count,
+                total / 1024.0, count > 0 ? total / count : 0, playing, playing > 0 ? playingTotal / playing : 0);
+        if (SessionArena.ENABLED)
+            report += String.format(" | hors tas=%.1f Ko (moy. %d o)", offHeap / 1024.0,
+                    count > 0 ? offHeap / count : 0);
+        return report;
+    }
+
+    /**
+     * Lance la récupération du profil sans bloquer l'écoute: les pings de
+     * status sont servis pendant ce temps, les logins attendent le profil
+     */
+    public void refreshProfile() {
+        if (!auth.hasToken())
+            return;
+        System.out.println("[*] [" + name + "] Token configuré, récupération du profil...");
+        auth.fetchProfileAsync().thenAccept(success -> {
+            if (success) {
+                System.out.println("[*] [" + name + "] Compte premium: " + auth.getPlayerName());
+            } else if (auth.hasAuth()) {
+                System.out.println("[!] [" + name + "] Échec récupération profil - profil en cache utilisé: "
+                        + auth.getPlayerName());
+            } else {
+                System.out.println("[!] [" + name + "] Échec récupération profil - mode offline");
+            }
+        });
+    }
+
+    /**
+     * Remplace la table de routage (les sessions en cours ne sont pas touchées)
+     */
+    public void reloadRoutes(ProxyConfig.ListenerConfig config) {
+        router.update(config.routes, config.targets, config.balance);
+    }
+
+    /**
+     * Ferme le port d'écoute et les connexions pré-établies
+     */
+    public void close() {
+        running = false;
+        ServerSocket socket = serverSocket;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+        router.close();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLocalPort() {
+        return localPort;
+    }
+
+    public Router getRouter() {
+        return router;
+    }
+
+    public VelocityModifier getVelocityModifier() {
+        return velocityModifier;
+    }
+
+    public MojangAuth getAuth() {
+        return auth;
+    }
+
+    public ListenerMetrics getMetrics() {
+        return metrics;
+    }
+
+    public BusyPoll getBusyPoll() {
+        return busyPoll;
+    }
+}
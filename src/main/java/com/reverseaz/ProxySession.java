@@ -3,12 +3,43 @@ package com.reverseaz;
 import com.reverseaz.auth.CipherStreams;
 import com.reverseaz.auth.EncryptionUtil;
 import com.reverseaz.auth.MojangAuth;
+import com.reverseaz.net.BackendTarget;
+import com.reverseaz.net.BufferPool;
+import com.reverseaz.net.BusyPoll;
+import com.reverseaz.net.HashedWheelTimer;
+import com.reverseaz.net.ListenerMetrics;
+import com.reverseaz.net.PooledInputStream;
+import com.reverseaz.net.PooledOutputStream;
+import com.reverseaz.net.RelayExecutor;
+import com.reverseaz.net.Router;
+import com.reverseaz.net.RoutingTable;
+import com.reverseaz.net.SessionArena;
+import com.reverseaz.net.SpscRing;
+import com.reverseaz.net.WriteQueue;
+import com.reverseaz.packet.FrameLimits;
+import com.reverseaz.packet.FrameReader;
+import com.reverseaz.packet.FrameRelay;
 import com.reverseaz.packet.PacketBuffer;
-import com.reverseaz.packet.PacketHandler;
+import com.reverseaz.packet.VarInt;
+import com.reverseaz.packet.ZlibOffload;
+import com.reverseaz.packet.ZlibPool;
 
+import javax.crypto.Cipher;
 import java.io.*;
 import java.net.*;
+import java.security.PublicKey;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 /**
  * Gère une session de proxy entre un client et le serveur
@@ -16,7 +47,52 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 public class ProxySession {
 
-    private static final int BUFFER_SIZE = 65536;
+    // Tampons d'E/S empruntés le temps d'une lecture ou d'un lot d'écriture:
+    // une session inactive ne tient que ceux de ses lecteurs en attente
+    private static final BufferPool BUFFERS = new BufferPool(8192, Integer.getInteger("reverseaz.buffers.pooled", 512));
+    // État zlib emprunté le temps d'un paquet
+    private static final ZlibPool ZLIB = new ZlibPool(Runtime.getRuntime().availableProcessors() * 2);
+    // Paquets S2C décompressés au-delà de cette taille: envoyés au client par
+    // morceaux au fil de l'inflate, sans tableau de la taille du paquet
+    private static final int STREAM_INFLATE_BYTES = Integer.getInteger("reverseaz.frame.streamInflateBytes", 65536);
+    // Inflate/deflate des gros paquets sur un pool partagé, par tranches
+    private static final ZlibOffload ZLIB_OFFLOAD = new ZlibOffload();
+    // Attente max du profil Mojang (fetch au démarrage) pour un login
+    private static final long PROFILE_WAIT_MS = 10000;
+    // Attente max d'une réponse Status quand le cache est froid
+    private static final long STATUS_WAIT_MS = 5000;
+    // Délai max entre l'accept et le passage en Play (status compris)
+    private static final long LOGIN_TIMEOUT_MS = Long.getLong("reverseaz.timeout.loginMs", 30000);
+    // En Play: aucun paquet reçu d'un côté pendant ce délai -> session fermée
+    private static final long READ_IDLE_MS = Long.getLong("reverseaz.timeout.readIdleMs", 30000);
+    // Écriture bloquée (le pair ne lit plus) pendant ce délai -> session fermée
+    private static final long WRITE_STALL_MS = Long.getLong("reverseaz.timeout.writeStallMs", 15000);
+
+    // Un seul thread de timer pour toutes les sessions (tick 100ms)
+    private static final HashedWheelTimer TIMER = new HashedWheelTimer("Session-Timer", 100, 512);
+    private static final long NOT_WRITING = -1;
+
+    // Files de sortie par direction: au-dessus du seuil haut, la lecture d'en face
+    // est suspendue jusqu'au seuil bas
+    private static final int QUEUE_HIGH_BYTES = Integer.getInteger("reverseaz.queue.highBytes", 256 * 1024);
+    private static final int QUEUE_LOW_BYTES = Integer.getInteger("reverseaz.queue.lowBytes", 64 * 1024);
+
+    // Pipeline S2C optionnel: lecture (+ déchiffrement) et décompression/modification
+    // sur deux threads reliés par un anneau sans verrou (l'écriture a déjà le sien)
+    private static final boolean PIPELINE = Boolean.getBoolean("reverseaz.pipeline");
+    private static final int PIPELINE_SLOTS = 256;
+
+    // Boucles de lecture du relay (C2S, S2C, transformation du pipeline) sur
+    // des threads partagés et bornés
+    private static final RelayExecutor RELAY = new RelayExecutor();
+
+    // Threads d'écriture réutilisés d'une session à l'autre
+    private static final AtomicInteger WRITER_THREADS = new AtomicInteger();
+    private static final ExecutorService WRITERS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "Session-Writer-" + WRITER_THREADS.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
 
     // Packet IDs (Protocol 110 / 1.9.4)
     private static final int PACKET_HANDSHAKE = 0x00;
@@ -25,57 +101,75 @@ public class ProxySession {
     private static final int PACKET_ENCRYPTION_RESPONSE = 0x01;
     private static final int PACKET_LOGIN_SUCCESS = 0x02;
     private static final int PACKET_SET_COMPRESSION = 0x03;
+    private static final int PACKET_STATUS_REQUEST = 0x00;
+    private static final int PACKET_STATUS_RESPONSE = 0x00;
+    private static final int PACKET_PING = 0x01;
 
     private final Socket clientSocket;
-    private final String targetHost;
-    private final int targetPort;
+    private final Router router;
     private final VelocityModifier velocityModifier;
     private final MojangAuth auth;
+    private final ListenerMetrics metrics;
+    private final BusyPoll busyPoll;
+    private final FrameRelay relay;
+    private final SessionArena arena; // null: frames en file sur le tas
     private final AtomicBoolean running = new AtomicBoolean(true);
-    private final PacketHandler packetHandler;
 
-    private Socket serverSocket;
-    private InputStream serverIn;
-    private OutputStream serverOut;
-    private InputStream clientIn;
-    private OutputStream clientOut;
+    // Choisi d'après le hostname du handshake
+    private BackendTarget backend;
+    private String targetHost;
+    private int targetPort;
+    private boolean countedOnBackend = false;
 
-    private int connectionState = 0; // 0=Handshake, 1=Status, 2=Login, 3=Play
+    private volatile Socket serverSocket;
+    // Lus sans synchronisation par le rapport mémoire (estimation)
+    private PooledInputStream serverIn;
+    private PooledOutputStream serverOut;
+    private PooledInputStream clientIn;
+    private PooledOutputStream clientOut;
+
+    private volatile int connectionState = 0; // 0=Handshake, 1=Status, 2=Login, 3=Play
     private int compressionThreshold = -1;
     private boolean serverEncrypted = false;
     private byte[] sharedSecret = null;
 
-    public ProxySession(Socket clientSocket, String targetHost, int targetPort,
-            VelocityModifier velocityModifier, MojangAuth auth) {
+    // Horloge grossière du timer: un accès volatile par paquet, pas d'appel système
+    private final long startedAt = TIMER.coarseMillis();
+    private volatile long lastClientRead;
+    private volatile long lastServerRead;
+    private volatile long clientWriteSince = NOT_WRITING;
+    private volatile long serverWriteSince = NOT_WRITING;
+    private HashedWheelTimer.Timeout watchdog; // protégé par this
+
+    private WriteQueue toServer;
+    private WriteQueue toClient;
+    private SpscRing fromServer; // null hors pipeline
+    private volatile FrameReader clientReader;
+    private volatile FrameReader serverReader;
+
+    public ProxySession(Socket clientSocket, Router router,
+            VelocityModifier velocityModifier, MojangAuth auth, ListenerMetrics metrics, BusyPoll busyPoll) {
         this.clientSocket = clientSocket;
-        this.targetHost = targetHost;
-        this.targetPort = targetPort;
+        this.router = router;
         this.velocityModifier = velocityModifier;
         this.auth = auth;
-        this.packetHandler = new PacketHandler(velocityModifier);
+        this.metrics = metrics;
+        this.busyPoll = busyPoll;
+        this.arena = SessionArena.ENABLED ? new SessionArena(BUFFERS) : null;
+        this.relay = new FrameRelay(velocityModifier, ZLIB, ZLIB_OFFLOAD, STREAM_INFLATE_BYTES,
+                arena != null ? SessionArena.SCRATCH_BYTES : 0);
     }
 
     public void start() {
+        metrics.sessionOpened();
+        armWatchdog(LOGIN_TIMEOUT_MS);
         try {
-            // Connexion au serveur cible
-            serverSocket = new Socket();
-            serverSocket.connect(new InetSocketAddress(targetHost, targetPort), 10000);
-            serverSocket.setTcpNoDelay(true);
-
-            // Configurer les sockets
+            // Configurer le socket client (buffers noyau laissés à l'autotuning)
             clientSocket.setTcpNoDelay(true);
-            clientSocket.setReceiveBufferSize(BUFFER_SIZE);
-            clientSocket.setSendBufferSize(BUFFER_SIZE);
-            serverSocket.setReceiveBufferSize(BUFFER_SIZE);
-            serverSocket.setSendBufferSize(BUFFER_SIZE);
-
-            // Streams initiaux (non chiffrés)
-            serverIn = new BufferedInputStream(serverSocket.getInputStream(), BUFFER_SIZE);
-            serverOut = new BufferedOutputStream(serverSocket.getOutputStream(), BUFFER_SIZE);
-            clientIn = new BufferedInputStream(clientSocket.getInputStream(), BUFFER_SIZE);
-            clientOut = new BufferedOutputStream(clientSocket.getOutputStream(), BUFFER_SIZE);
-
-            // Phase Login avec gestion encryption
+            clientIn = new PooledInputStream(clientSocket.getInputStream(), BUFFERS);
+            clientOut = new PooledOutputStream(clientSocket.getOutputStream(), BUFFERS);
+
+            // Phase Login avec gestion encryption (connexion au serveur après le handshake)
             handleLoginPhase();
 
             if (!running.get())
@@ -83,25 +177,66 @@ public class ProxySession {
 
             // Si play state, lancer relay normal
             if (connectionState == 3) {
-                Thread clientToServer = new Thread(() -> relayClientToServer(), "C2S");
-                Thread serverToClient = new Thread(() -> relayServerToClient(), "S2C");
+                metrics.loginCompleted();
+                lastClientRead = lastServerRead = TIMER.coarseMillis();
+                // Passer des échéances de login à celles du Play
+                armWatchdog(Math.min(READ_IDLE_MS, WRITE_STALL_MS));
+                if (busyPoll != null) {
+                    // Attente active seulement en Play, sur les deux lecteurs du relay
+                    clientIn.setBusyPoll(busyPoll);
+                    serverIn.setBusyPoll(busyPoll);
+                }
+                toServer = metrics.newWriteQueue(false, QUEUE_HIGH_BYTES, QUEUE_LOW_BYTES, arena);
+                toClient = metrics.newWriteQueue(true, QUEUE_HIGH_BYTES, QUEUE_LOW_BYTES, arena);
+                Future<?> serverWriter = WRITERS.submit(() -> runWriter(toServer, serverOut, false));
+                Future<?> clientWriter = WRITERS.submit(() -> runWriter(toClient, clientOut, true));
+
+                if (PIPELINE)
+                    fromServer = new SpscRing(PIPELINE_SLOTS, QUEUE_HIGH_BYTES);
+                Future<?> clientToServer = null;
+                Future<?> serverToClient = null;
+                Future<?> transform = null;
+                try {
+                    clientToServer = RELAY.submit(this::relayClientToServer, metrics);
+                    serverToClient = RELAY.submit(this::relayServerToClient, metrics);
+                    if (fromServer != null)
+                        transform = RELAY.submit(this::runTransform, metrics);
+                } catch (RejectedExecutionException e) {
+                    System.err.println("[-] Pool de relay saturé, session fermée (" + RELAY + ")");
+                    // Arrête les boucles déjà lancées
+                    abort();
+                    if (fromServer != null)
+                        fromServer.close();
+                }
 
-                clientToServer.start();
-                serverToClient.start();
+                awaitRelay(clientToServer);
+                awaitRelay(serverToClient);
+                awaitRelay(transform);
 
-                clientToServer.join();
-                serverToClient.join();
+                // Laisser partir ce qui est en file (ex: Disconnect du serveur) avant de fermer
+                toServer.close();
+                toClient.close();
+                awaitWriter(serverWriter);
+                awaitWriter(clientWriter);
             }
 
+        } catch (FrameLimits.RejectedFrameException e) {
+            rejectFrame("login", e);
         } catch (IOException e) {
-            System.err.println("[-] Erreur session: " + e.getMessage());
+            // Après un timeout, l'erreur vient de la fermeture forcée des sockets
+            if (running.get())
+                System.err.println("[-] Erreur session: " + e.getMessage());
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         } catch (Exception e) {
             System.err.println("[-] Erreur: " + e.getMessage());
             e.printStackTrace();
         } finally {
+            disarmWatchdog();
             close();
+            if (countedOnBackend)
+                backend.sessionClosed();
+            metrics.sessionClosed();
         }
     }
 
@@ -123,44 +258,74 @@ public class ProxySession {
         int serverPort = buf.readShort() & 0xFFFF;
         int nextState = buf.readVarInt();
 
-        connectionState = nextState;
-        System.out.println("[C->S] Handshake: v" + protocolVersion + " -> " + targetHost + ":" + targetPort + " state="
-                + nextState);
-
-        // Réécrire le handshake avec notre adresse cible
-        PacketBuffer newHandshake = new PacketBuffer(256);
-        newHandshake.writeVarInt(protocolVersion);
-        writeString(newHandshake, targetHost);
-        newHandshake.writeShort((short) targetPort);
-        newHandshake.writeVarInt(nextState);
+        // Route d'après le hostname demandé par le client
+        backend = router.route(serverAddress);
+        targetHost = backend.getHost();
+        targetPort = backend.getPort();
 
-        sendPacket(serverOut, PACKET_HANDSHAKE, newHandshake.toArray());
+        connectionState = nextState;
+        System.out.println("[C->S] Handshake: v" + protocolVersion + " " + RoutingTable.normalize(serverAddress) + " -> " + targetHost + ":"
+                + targetPort + " state=" + nextState);
 
         if (nextState == 1) {
-            // Status: juste relay
-            System.out.println("[*] Mode Status - relay simple");
-            startSimpleRelay();
+            // Status: servi depuis le cache, aucune connexion au serveur
+            handleStatus();
             return;
         }
 
+        // Socket pré-connecté du pool, sinon connexion en parallèle de la lecture
+        // du Login Start (et de l'attente éventuelle du profil)
+        backend.sessionOpened();
+        countedOnBackend = true;
+        CompletableFuture<Socket> pendingServer = backend.acquire();
+        try {
+            loginWithServer(protocolVersion, nextState, pendingServer);
+        } finally {
+            if (serverSocket == null) {
+                // Login abandonné avant d'utiliser la connexion: la fermer dès qu'elle aboutit
+                pendingServer.thenAccept(ProxySession::closeQuietly);
+            }
+        }
+    }
+
+    /**
+     * Suite du login une fois la connexion serveur lancée: Login Start,
+     * handshake réécrit puis boucle de login côté serveur
+     */
+    private void loginWithServer(int protocolVersion, int nextState, CompletableFuture<Socket> pendingServer)
+            throws Exception {
         // Login Start du client
         PacketData loginStart = readPacket(clientIn);
         if (loginStart == null || loginStart.packetId != PACKET_LOGIN_START)
             return;
 
-        buf = new PacketBuffer(loginStart.data.length + 10);
+        PacketBuffer buf = new PacketBuffer(loginStart.data.length + 10);
         buf.writeBytes(loginStart.data, 0, loginStart.data.length);
         buf.setReaderIndex(0);
         String clientUsername = readString(buf);
         System.out.println("[C->S] Login Start: " + clientUsername);
 
-        // Si on a un token, utiliser notre profil
+        // Si on a un token, utiliser notre profil (attendre le fetch lancé au démarrage)
         String usernameToSend = clientUsername;
+        if (auth != null && auth.hasToken()) {
+            auth.awaitProfile(PROFILE_WAIT_MS);
+        }
         if (auth != null && auth.hasAuth()) {
             usernameToSend = auth.getPlayerName();
             System.out.println("[*] Override username -> " + usernameToSend);
         }
 
+        attachServer(pendingServer);
+
+        // Réécrire le handshake avec notre adresse cible
+        PacketBuffer newHandshake = new PacketBuffer(256);
+        newHandshake.writeVarInt(protocolVersion);
+        writeString(newHandshake, targetHost);
+        newHandshake.writeShort((short) targetPort);
+        newHandshake.writeVarInt(nextState);
+
+        sendPacket(serverOut, PACKET_HANDSHAKE, newHandshake.toArray());
+
         // Envoyer Login Start au serveur avec le username approprié
         PacketBuffer loginPacket = new PacketBuffer(256);
         writeString(loginPacket, usernameToSend);
@@ -184,6 +349,7 @@ public class ProxySession {
                     buf.writeBytes(serverPacket.data, 0, serverPacket.data.length);
                     buf.setReaderIndex(0);
                     compressionThreshold = buf.readVarInt();
+                    relay.setCompressionThreshold(compressionThreshold);
                     System.out.println(
                             "[S->P] Set Compression: " + compressionThreshold + " (client reste non compressé)");
                     // NE PAS forward au client - on gère la compression uniquement côté serveur
@@ -205,6 +371,48 @@ public class ProxySession {
         }
     }
 
+    /**
+     * Attend la connexion au serveur cible et ouvre les streams (non chiffrés)
+     */
+    private void attachServer(CompletableFuture<Socket> pendingServer) throws IOException, InterruptedException {
+        try {
+            serverSocket = pendingServer.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            throw new IOException("Connexion au serveur échouée", cause);
+        }
+
+        serverIn = new PooledInputStream(serverSocket.getInputStream(), BUFFERS);
+        serverOut = new PooledOutputStream(serverSocket.getOutputStream(), BUFFERS);
+    }
+
+    /**
+     * Répond au Status Request et au Ping depuis le cache de status
+     */
+    private void handleStatus() throws IOException {
+        PacketData request = readPacket(clientIn);
+        if (request == null || request.packetId != PACKET_STATUS_REQUEST)
+            return;
+
+        String json = backend.getStatusCache().get(STATUS_WAIT_MS);
+        if (json == null) {
+            System.out.println("[-] Status indisponible (serveur injoignable)");
+            return;
+        }
+
+        PacketBuffer response = new PacketBuffer(json.length() + 5);
+        writeString(response, json);
+        sendPacketToClient(PACKET_STATUS_RESPONSE, response.toArray());
+        metrics.statusServed();
+
+        // Pong: renvoyer le payload du Ping tel quel
+        PacketData ping = readPacket(clientIn);
+        if (ping != null && ping.packetId == PACKET_PING)
+            sendPacketToClient(PACKET_PING, ping.data);
+    }
+
     /**
      * Gère le paquet Encryption Request du serveur
      */
@@ -226,22 +434,21 @@ public class ProxySession {
         // Générer le shared secret
         sharedSecret = EncryptionUtil.generateSharedSecret();
 
-        // Authentification Mojang si on a un token
+        // Authentification Mojang si on a un token: lancée en arrière-plan, le
+        // travail RSA ci-dessous se fait pendant l'aller-retour HTTPS
+        CompletableFuture<Boolean> join = null;
         if (auth != null && auth.hasAuth()) {
             String serverHash = EncryptionUtil.computeServerHash(serverId, sharedSecret, publicKey);
             System.out.println("[*] Server Hash: " + serverHash);
-
-            boolean authSuccess = auth.joinServer(serverHash);
-            if (!authSuccess) {
-                System.err.println("[!] ATTENTION: Auth Mojang échouée! Le serveur peut rejeter la connexion.");
-            }
+            join = auth.joinServerAsync(serverHash);
         } else {
             System.out.println("[!] Pas de token - le serveur online-mode va probablement rejeter");
         }
 
-        // Chiffrer le shared secret et verify token avec RSA
-        byte[] encryptedSecret = EncryptionUtil.encryptRSA(publicKey, sharedSecret);
-        byte[] encryptedToken = EncryptionUtil.encryptRSA(publicKey, verifyToken);
+        // Chiffrer le shared secret et verify token avec RSA (clé parsée une seule fois)
+        PublicKey serverKey = EncryptionUtil.parsePublicKey(publicKey);
+        byte[] encryptedSecret = EncryptionUtil.encryptRSA(serverKey, sharedSecret);
+        byte[] encryptedToken = EncryptionUtil.encryptRSA(serverKey, verifyToken);
 
         // Construire l'Encryption Response
         PacketBuffer response = new PacketBuffer(512);
@@ -250,13 +457,23 @@ public class ProxySession {
         response.writeVarInt(encryptedToken.length);
         response.writeBytes(encryptedToken, 0, encryptedToken.length);
 
+        // Le join doit être terminé avant l'Encryption Response (le serveur vérifie la session)
+        if (join != null && !join.join()) {
+            System.err.println("[!] ATTENTION: Auth Mojang échouée! Le serveur peut rejeter la connexion.");
+        }
+
         // Envoyer au serveur (non chiffré, c'est le dernier paquet clair)
         sendPacket(serverOut, PACKET_ENCRYPTION_RESPONSE, response.toArray());
         System.out.println("[P->S] Encryption Response envoyée");
 
-        // Activer l'encryption sur la connexion serveur
-        serverIn = new CipherStreams.DecryptingInputStream(serverSocket.getInputStream(), sharedSecret);
-        serverOut = new CipherStreams.EncryptingOutputStream(serverSocket.getOutputStream(), sharedSecret);
+        // Activer l'encryption sur la connexion serveur (les tampons clairs sont
+        // vides: le serveur attend notre réponse avant d'envoyer quoi que ce soit)
+        serverIn.release();
+        serverIn = new PooledInputStream(
+                new CipherStreams.DecryptingInputStream(serverSocket.getInputStream(), sharedSecret), BUFFERS);
+        // Chiffré sur place dans le tampon du lot, une passe par flush
+        serverOut = new PooledOutputStream(serverSocket.getOutputStream(), BUFFERS,
+                EncryptionUtil.createAESCipher(Cipher.ENCRYPT_MODE, sharedSecret));
         serverEncrypted = true;
         System.out.println("[*] Encryption activée avec le serveur!");
 
@@ -270,50 +487,23 @@ public class ProxySession {
      */
     private void relayClientToServer() {
         try {
+            // Taille (VarInt) + contenu, un octet réservé devant pour l'en-tête;
+            // tableau réutilisé si la file copie les frames (arène)
+            FrameReader reader = new FrameReader(clientIn, FrameRelay.CLIENT_HEADROOM,
+                    toServer.copiesOnOffer() ? SessionArena.SCRATCH_BYTES : 0);
+            clientReader = reader;
             while (running.get()) {
-                // Lire la taille du paquet (VarInt)
-                int packetLength = readVarInt(clientIn);
-                if (packetLength < 0)
-                    break;
-
-                // Lire le contenu du paquet
-                byte[] packetData = new byte[packetLength];
-                int totalRead = 0;
-                while (totalRead < packetLength) {
-                    int read = clientIn.read(packetData, totalRead, packetLength - totalRead);
-                    if (read == -1)
-                        break;
-                    totalRead += read;
-                }
-                if (totalRead < packetLength)
+                byte[] frame = reader.next();
+                if (frame == null)
                     break;
+                metrics.relayedC2S(reader.getLength() - FrameRelay.CLIENT_HEADROOM);
+                lastClientRead = TIMER.coarseMillis();
 
                 // Envoyer au serveur avec compression si activée
-                if (compressionThreshold >= 0) {
-                    // Format compressé: [PacketLength][DataLength][Data]
-                    if (packetData.length >= compressionThreshold) {
-                        // Compresser
-                        byte[] compressed = compress(packetData);
-                        PacketBuffer out = new PacketBuffer(compressed.length + 10);
-                        out.writeVarInt(PacketBuffer.getVarIntSize(packetData.length) + compressed.length);
-                        out.writeVarInt(packetData.length);
-                        out.writeBytes(compressed, 0, compressed.length);
-                        serverOut.write(out.getData(), 0, out.getWriterIndex());
-                    } else {
-                        // Pas de compression mais format compressé (DataLength = 0)
-                        PacketBuffer out = new PacketBuffer(packetData.length + 10);
-                        out.writeVarInt(packetData.length + 1); // +1 pour le VarInt(0)
-                        out.writeVarInt(0); // Non compressé
-                        out.writeBytes(packetData, 0, packetData.length);
-                        serverOut.write(out.getData(), 0, out.getWriterIndex());
-                    }
-                } else {
-                    // Mode non compressé - envoyer tel quel
-                    writeVarIntTo(serverOut, packetData.length);
-                    serverOut.write(packetData);
-                }
-                serverOut.flush();
+                relay.clientToServer(frame, reader.getLength(), toServer);
             }
+        } catch (FrameLimits.RejectedFrameException e) {
+            rejectFrame("C2S", e);
         } catch (Exception e) {
             if (running.get()) {
                 System.err.println("[-] Erreur C2S: " + e.getMessage());
@@ -328,219 +518,65 @@ public class ProxySession {
      */
     private void relayServerToClient() {
         try {
+            // L'anneau du pipeline garde les frames: pas de réutilisation
+            FrameReader reader = new FrameReader(serverIn, 0,
+                    toClient.copiesOnOffer() && fromServer == null ? SessionArena.SCRATCH_BYTES : 0);
+            serverReader = reader;
             while (running.get()) {
-                // Lire la taille du paquet
-                int packetLength = readVarInt(serverIn);
-                if (packetLength < 0)
-                    break;
-
-                // Lire tout le contenu du paquet
-                byte[] rawPacket = new byte[packetLength];
-                int totalRead = 0;
-                while (totalRead < packetLength) {
-                    int read = serverIn.read(rawPacket, totalRead, packetLength - totalRead);
-                    if (read == -1)
-                        break;
-                    totalRead += read;
-                }
-                if (totalRead < packetLength)
+                // Lire tout le paquet
+                byte[] rawPacket = reader.next();
+                if (rawPacket == null)
                     break;
+                metrics.relayedS2C(reader.getLength());
+                lastServerRead = TIMER.coarseMillis();
 
-                // Traiter le paquet (décompression si nécessaire)
-                byte[] processedPacket = processAndModifyPacket(rawPacket);
-
-                // Envoyer au client avec le VarInt de taille
-                writeVarIntTo(clientOut, processedPacket.length);
-                clientOut.write(processedPacket);
-                clientOut.flush();
+                if (fromServer != null)
+                    fromServer.put(rawPacket);
+                else
+                    relay.serverToClient(rawPacket, reader.getLength(), toClient);
             }
+        } catch (FrameLimits.RejectedFrameException e) {
+            rejectFrame("S2C", e);
         } catch (Exception e) {
             if (running.get()) {
                 System.err.println("[-] Erreur S2C: " + e.getMessage());
             }
         } finally {
+            if (fromServer != null)
+                fromServer.close();
             running.set(false);
         }
     }
 
     /**
-     * Traite un paquet du serveur et le renvoie au format client (non compressé)
-     * Serveur envoie: compressé si threshold >= 0
-     * Client attend: toujours non compressé (pas de Set Compression reçu)
+     * Étage de transformation du pipeline: vide l'anneau dans l'ordre de
+     * lecture, puis s'arrête quand le lecteur l'a fermé
      */
-    private byte[] processAndModifyPacket(byte[] rawPacket) {
+    private void runTransform() {
         try {
-            byte[] uncompressedContent;
-
-            if (compressionThreshold < 0) {
-                // Serveur n'a pas activé la compression - paquet = [ID][Payload]
-                uncompressedContent = rawPacket;
-            } else {
-                // Serveur utilise la compression - paquet = [DataLength][Data]
-                PacketBuffer buf = new PacketBuffer(rawPacket.length);
-                buf.writeBytes(rawPacket, 0, rawPacket.length);
-                buf.setReaderIndex(0);
-
-                int dataLength = buf.readVarInt();
-                byte[] remaining = buf.readBytes(buf.readableBytes());
-
-                if (dataLength == 0) {
-                    // Non compressé par le serveur, remaining = [ID][Payload]
-                    uncompressedContent = remaining;
-                } else {
-                    // Compressé, décompresser
-                    uncompressedContent = decompress(remaining, dataLength);
-                }
-            }
-
-            // Modifier la vélocité si les multiplicateurs KB sont actifs
-            return modifyVelocityIfNeeded(uncompressedContent);
-
+            byte[] rawPacket;
+            while ((rawPacket = fromServer.take()) != null)
+                relay.serverToClient(rawPacket, toClient);
+        } catch (FrameLimits.RejectedFrameException e) {
+            rejectFrame("S2C", e);
         } catch (Exception e) {
-            // En cas d'erreur, tenter de décompresser et retourner brut
-            try {
-                if (compressionThreshold >= 0) {
-                    PacketBuffer buf = new PacketBuffer(rawPacket.length);
-                    buf.writeBytes(rawPacket, 0, rawPacket.length);
-                    buf.setReaderIndex(0);
-                    int dataLength = buf.readVarInt();
-                    byte[] remaining = buf.readBytes(buf.readableBytes());
-                    if (dataLength == 0)
-                        return remaining;
-                    return decompress(remaining, dataLength);
-                }
-            } catch (Exception e2) {
-            }
-            return rawPacket;
-        }
-    }
-
-    /**
-     * Modifie le paquet Entity Velocity (0x3E) si les multiplicateurs sont actifs
-     * Modifie en place les valeurs de vélocité pour préserver la structure du
-     * paquet
-     * 
-     * Entity Velocity format (protocol 110):
-     * - VarInt: Packet ID (0x3E)
-     * - VarInt: Entity ID
-     * - Short: Velocity X
-     * - Short: Velocity Y
-     * - Short: Velocity Z
-     */
-    private byte[] modifyVelocityIfNeeded(byte[] packet) {
-        // Ne rien faire si pas de modification nécessaire
-        if (velocityModifier.getMultiplierX() == 1.0 &&
-                velocityModifier.getMultiplierY() == 1.0 &&
-                velocityModifier.getMultiplierZ() == 1.0) {
-            return packet;
-        }
-
-        // Taille minimale: 1 (packetId) + 1 (entityId min) + 6 (3 shorts) = 8 bytes
-        if (packet.length < 8)
-            return packet;
-
-        try {
-            // Vérifier rapidement le premier byte - 0x3B = 59 < 128, donc 1 byte VarInt
-            if ((packet[0] & 0xFF) != 0x3B)
-                return packet;
-
-            // Calculer la taille du VarInt entityId
-            int entityIdStart = 1; // Après le packetId (1 byte pour 0x3E)
-            int entityIdSize = 0;
-            for (int i = entityIdStart; i < packet.length && i < entityIdStart + 5; i++) {
-                entityIdSize++;
-                if ((packet[i] & 0x80) == 0)
-                    break; // Dernier byte du VarInt
-            }
-
-            int velocityStart = entityIdStart + entityIdSize;
-
-            // Vérifier que le paquet a EXACTEMENT la bonne taille
-            // velocityStart + 6 bytes pour les 3 shorts = taille totale
-            if (packet.length != velocityStart + 6)
-                return packet;
-
-            // Lire les vélocités actuelles
-            short velX = (short) (((packet[velocityStart] & 0xFF) << 8) | (packet[velocityStart + 1] & 0xFF));
-            short velY = (short) (((packet[velocityStart + 2] & 0xFF) << 8) | (packet[velocityStart + 3] & 0xFF));
-            short velZ = (short) (((packet[velocityStart + 4] & 0xFF) << 8) | (packet[velocityStart + 5] & 0xFF));
-
-            // Appliquer les multiplicateurs
-            short[] modified = velocityModifier.modifyVelocity(velX, velY, velZ);
-
-            System.out.println("[KB] Entity Velocity: (" + velX + "," + velY + "," + velZ +
-                    ") -> (" + modified[0] + "," + modified[1] + "," + modified[2] + ")");
-
-            // Modifier en place
-            byte[] result = packet.clone();
-            result[velocityStart] = (byte) ((modified[0] >> 8) & 0xFF);
-            result[velocityStart + 1] = (byte) (modified[0] & 0xFF);
-            result[velocityStart + 2] = (byte) ((modified[1] >> 8) & 0xFF);
-            result[velocityStart + 3] = (byte) (modified[1] & 0xFF);
-            result[velocityStart + 4] = (byte) ((modified[2] >> 8) & 0xFF);
-            result[velocityStart + 5] = (byte) (modified[2] & 0xFF);
-
-            return result;
-        } catch (Exception e) {
-            return packet;
-        }
-    }
-
-    private void writeVarIntTo(OutputStream out, int value) throws IOException {
-        while ((value & ~0x7F) != 0) {
-            out.write((value & 0x7F) | 0x80);
-            value >>>= 7;
-        }
-        out.write(value);
-    }
-
-    /**
-     * Démarre un relay simple pour le mode Status
-     */
-    private void startSimpleRelay() {
-        Thread clientToServer = new Thread(() -> {
-            try {
-                byte[] buffer = new byte[BUFFER_SIZE];
-                int bytesRead;
-                while (running.get() && (bytesRead = clientIn.read(buffer)) != -1) {
-                    serverOut.write(buffer, 0, bytesRead);
-                    serverOut.flush();
-                }
-            } catch (IOException e) {
-            }
-            running.set(false);
-        }, "C2S-Status");
-
-        Thread serverToClient = new Thread(() -> {
-            try {
-                byte[] buffer = new byte[BUFFER_SIZE];
-                int bytesRead;
-                while (running.get() && (bytesRead = serverIn.read(buffer)) != -1) {
-                    clientOut.write(buffer, 0, bytesRead);
-                    clientOut.flush();
-                }
-            } catch (IOException e) {
+            if (running.get()) {
+                System.err.println("[-] Erreur S2C: " + e.getMessage());
             }
+        } finally {
+            // Débloque le lecteur s'il attendait de la place
+            fromServer.close();
             running.set(false);
-        }, "S2C-Status");
-
-        clientToServer.start();
-        serverToClient.start();
-
-        try {
-            clientToServer.join();
-            serverToClient.join();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
         }
     }
 
     // =============== PACKET I/O ===============
 
     private PacketData readPacket(InputStream in) throws IOException {
-        int length = readVarInt(in);
+        int length = VarInt.read(in);
         if (length < 0)
             return null;
+        FrameLimits.checkFrameLength(length);
 
         byte[] data = new byte[length];
         int totalRead = 0;
@@ -558,7 +594,8 @@ public class ProxySession {
             buf.setReaderIndex(0);
 
             int uncompressedLength = buf.readVarInt();
-            if (uncompressedLength > 0) {
+            if (uncompressedLength != 0) {
+                FrameLimits.checkInflatedLength(uncompressedLength, buf.readableBytes());
                 // Décompresser
                 byte[] compressed = buf.readBytes(buf.readableBytes());
                 data = decompress(compressed, uncompressedLength);
@@ -577,32 +614,47 @@ public class ProxySession {
         return new PacketData(packetId, payload);
     }
 
+    /**
+     * Envoie un paquet en deux segments, en-tête (taille, DataLength, ID)
+     * puis contenu: le flux tamponné les réunit en une seule écriture, sans
+     * recopier le contenu dans une frame intermédiaire
+     */
     private void sendPacket(OutputStream out, int packetId, byte[] payload) throws IOException {
-        PacketBuffer content = new PacketBuffer(payload.length + 10);
-        content.writeVarInt(packetId);
-        content.writeBytes(payload, 0, payload.length);
-        byte[] contentBytes = content.toArray();
-
-        PacketBuffer packet = new PacketBuffer(contentBytes.length + 10);
+        writePacket(out, packetId, payload, compressionThreshold);
+        out.flush();
+    }
 
-        if (compressionThreshold >= 0) {
-            if (contentBytes.length >= compressionThreshold) {
-                byte[] compressed = compress(contentBytes);
-                packet.writeVarInt(PacketBuffer.getVarIntSize(contentBytes.length) + compressed.length);
-                packet.writeVarInt(contentBytes.length);
-                packet.writeBytes(compressed, 0, compressed.length);
+    /**
+     * Encode un paquet en frame (compressée selon compressionThreshold, -1 =
+     * pas de compression) et l'écrit dans out, sans flush
+     */
+    static void writePacket(OutputStream out, int packetId, byte[] payload, int compressionThreshold)
+            throws IOException {
+        int contentLength = PacketBuffer.getVarIntSize(packetId) + payload.length;
+        PacketBuffer header = new PacketBuffer(16);
+
+        if (compressionThreshold >= 0 && contentLength >= compressionThreshold) {
+            // zlib prend le contenu d'un seul tenant
+            PacketBuffer content = new PacketBuffer(contentLength);
+            content.writeVarInt(packetId);
+            content.writeBytes(payload, 0, payload.length);
+            // Uniquement les octets écrits: writeVarInt réserve de la place en plus
+            byte[] compressed = compress(content.getData(), content.getWriterIndex());
+            header.writeVarInt(PacketBuffer.getVarIntSize(contentLength) + compressed.length);
+            header.writeVarInt(contentLength);
+            out.write(header.getData(), 0, header.getWriterIndex());
+            out.write(compressed, 0, compressed.length);
+        } else {
+            if (compressionThreshold >= 0) {
+                header.writeVarInt(contentLength + 1);
+                header.writeVarInt(0);
             } else {
-                packet.writeVarInt(contentBytes.length + 1);
-                packet.writeVarInt(0);
-                packet.writeBytes(contentBytes, 0, contentBytes.length);
+                header.writeVarInt(contentLength);
             }
-        } else {
-            packet.writeVarInt(contentBytes.length);
-            packet.writeBytes(contentBytes, 0, contentBytes.length);
+            header.writeVarInt(packetId);
+            out.write(header.getData(), 0, header.getWriterIndex());
+            out.write(payload, 0, payload.length);
         }
-
-        out.write(packet.getData(), 0, packet.getWriterIndex());
-        out.flush();
     }
 
     /**
@@ -610,50 +662,15 @@ public class ProxySession {
      * (le client n'a pas reçu Set Compression)
      */
     private void sendPacketToClient(int packetId, byte[] payload) throws IOException {
-        PacketBuffer content = new PacketBuffer(payload.length + 10);
-        content.writeVarInt(packetId);
-        content.writeBytes(payload, 0, payload.length);
-        byte[] contentBytes = content.toArray();
-
-        PacketBuffer packet = new PacketBuffer(contentBytes.length + 10);
-        packet.writeVarInt(contentBytes.length);
-        packet.writeBytes(contentBytes, 0, contentBytes.length);
+        PacketBuffer header = new PacketBuffer(10);
+        header.writeVarInt(PacketBuffer.getVarIntSize(packetId) + payload.length);
+        header.writeVarInt(packetId);
 
-        clientOut.write(packet.getData(), 0, packet.getWriterIndex());
+        clientOut.write(header.getData(), 0, header.getWriterIndex());
+        clientOut.write(payload, 0, payload.length);
         clientOut.flush();
     }
 
-    private byte[] buildPacketBytes(int packetId, byte[] payload) {
-        PacketBuffer content = new PacketBuffer(payload.length + 10);
-        content.writeVarInt(packetId);
-        content.writeBytes(payload, 0, payload.length);
-        byte[] contentBytes = content.toArray();
-
-        PacketBuffer packet = new PacketBuffer(contentBytes.length + 10);
-        packet.writeVarInt(contentBytes.length);
-        packet.writeBytes(contentBytes, 0, contentBytes.length);
-
-        return packet.toArray();
-    }
-
-    private int readVarInt(InputStream in) throws IOException {
-        int value = 0;
-        int position = 0;
-        int b;
-
-        do {
-            b = in.read();
-            if (b == -1)
-                return -1;
-            value |= (b & 0x7F) << position;
-            position += 7;
-            if (position > 35)
-                throw new IOException("VarInt too big");
-        } while ((b & 0x80) != 0);
-
-        return value;
-    }
-
     private String readString(PacketBuffer buf) {
         int length = buf.readVarInt();
         byte[] bytes = buf.readBytes(length);
@@ -667,34 +684,168 @@ public class ProxySession {
     }
 
     private byte[] decompress(byte[] data, int uncompressedLength) throws IOException {
-        java.util.zip.Inflater inflater = new java.util.zip.Inflater();
-        inflater.setInput(data);
-        byte[] result = new byte[uncompressedLength];
+        Inflater inflater = ZLIB.acquireInflater();
         try {
+            inflater.setInput(data);
+            byte[] result = new byte[uncompressedLength];
             int count = inflater.inflate(result);
-            if (count != uncompressedLength) {
-                System.out.println("[!] Decompression mismatch: expected " + uncompressedLength + " got " + count);
-            }
+            if (count != uncompressedLength)
+                throw new FrameLimits.RejectedFrameException(
+                        "paquet décompressé de " + count + " octets, " + uncompressedLength + " annoncés");
+            return result;
         } catch (java.util.zip.DataFormatException e) {
             throw new IOException("Decompression failed", e);
+        } finally {
+            ZLIB.release(inflater);
         }
-        inflater.end();
-        return result;
     }
 
-    private byte[] compress(byte[] data) {
-        java.util.zip.Deflater deflater = new java.util.zip.Deflater();
-        deflater.setInput(data);
-        deflater.finish();
+    private static byte[] compress(byte[] data, int length) throws IOException {
+        Deflater deflater = ZLIB.acquireDeflater();
+        try {
+            if (ZLIB_OFFLOAD.accepts(length))
+                return ZLIB_OFFLOAD.deflate(deflater, data, 0, length);
+
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(length);
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                baos.write(buffer, 0, count);
+            }
+            return baos.toByteArray();
+        } finally {
+            ZLIB.release(deflater);
+        }
+    }
+
+    /**
+     * Frame refusée (taille hors bornes ou incohérente): la session se ferme
+     */
+    private void rejectFrame(String direction, FrameLimits.RejectedFrameException e) {
+        if (!running.get())
+            return;
+        System.err.println("[-] Frame rejetée (" + direction + "): " + e.getMessage());
+        metrics.frameRejected();
+        abort();
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream(data.length);
-        byte[] buffer = new byte[1024];
-        while (!deflater.finished()) {
-            int count = deflater.deflate(buffer);
-            baos.write(buffer, 0, count);
+    /**
+     * Vide une file de sortie vers son socket jusqu'à fermeture de la file
+     */
+    private void runWriter(WriteQueue queue, PooledOutputStream out, boolean toClientSide) {
+        try {
+            queue.drainTo(out, inProgress -> {
+                long since = inProgress ? TIMER.coarseMillis() : NOT_WRITING;
+                if (toClientSide)
+                    clientWriteSince = since;
+                else
+                    serverWriteSince = since;
+            });
+        } catch (IOException e) {
+            if (running.get())
+                System.err.println("[-] Erreur écriture " + (toClientSide ? "client" : "serveur") + ": " + e.getMessage());
+        } finally {
+            // Plus personne ne vide cette file: débloquer le lecteur d'en face
+            queue.discard();
+            out.release();
+            running.set(false);
         }
-        deflater.end();
-        return baos.toByteArray();
+    }
+
+    private static void awaitRelay(Future<?> loop) throws InterruptedException {
+        if (loop == null)
+            return;
+        try {
+            loop.get();
+        } catch (ExecutionException e) {
+            System.err.println("[-] Erreur relay: " + e.getCause());
+        }
+    }
+
+    private static void awaitWriter(Future<?> writer) throws InterruptedException {
+        try {
+            writer.get(WRITE_STALL_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException ignored) {
+            // Écriture bloquée: close() coupera le socket
+        }
+    }
+
+    /**
+     * Vérifié par le timer partagé: deadline de login, inactivité en lecture,
+     * écriture bloquée. Se replanifie pour la prochaine échéance possible
+     * (une planification par période, pas par paquet).
+     */
+    private void checkTimeouts() {
+        if (!running.get())
+            return;
+        long now = TIMER.coarseMillis();
+        String reason = null;
+        long next;
+        if (connectionState != 3) {
+            next = LOGIN_TIMEOUT_MS - (now - startedAt);
+            if (next <= 0)
+                reason = "login non terminé après " + LOGIN_TIMEOUT_MS + "ms";
+        } else {
+            long lastRead = Math.min(lastClientRead, lastServerRead);
+            next = READ_IDLE_MS - (now - lastRead);
+            if (next <= 0)
+                reason = (lastClientRead <= lastServerRead ? "client" : "serveur") + " inactif depuis "
+                        + (now - lastRead) + "ms";
+            next = Math.min(next, writeStallRemaining(clientWriteSince, now));
+            next = Math.min(next, writeStallRemaining(serverWriteSince, now));
+            if (reason == null && next <= 0)
+                reason = "écriture bloquée (" + (clientWriteSince != NOT_WRITING ? "client" : "serveur")
+                        + " ne lit plus)";
+        }
+
+        if (reason != null) {
+            System.out.println("[-] Timeout session: " + reason);
+            metrics.sessionTimedOut();
+            abort();
+            return;
+        }
+        armWatchdog(next);
+    }
+
+    /**
+     * (Re)planifie l'unique vérification de timeouts de la session
+     */
+    private synchronized void armWatchdog(long delayMillis) {
+        if (watchdog != null)
+            watchdog.cancel();
+        watchdog = TIMER.schedule(this::checkTimeouts, delayMillis);
+    }
+
+    private synchronized void disarmWatchdog() {
+        if (watchdog != null)
+            watchdog.cancel();
+        watchdog = null;
+    }
+
+    private static long writeStallRemaining(long since, long now) {
+        return since == NOT_WRITING ? WRITE_STALL_MS : WRITE_STALL_MS - (now - since);
+    }
+
+    /**
+     * Ferme les sockets depuis un autre thread: les lectures/écritures bloquées
+     * échouent et les threads de la session se terminent
+     */
+    private void abort() {
+        running.set(false);
+        closeQuietly(clientSocket);
+        Socket server = serverSocket;
+        if (server != null)
+            closeQuietly(server);
     }
 
     private void close() {
@@ -709,9 +860,90 @@ public class ProxySession {
                 serverSocket.close();
         } catch (IOException ignored) {
         }
+        releaseBuffers();
         System.out.println("[-] Session terminée");
     }
 
+    private void releaseBuffers() {
+        if (clientIn != null)
+            clientIn.release();
+        if (clientOut != null)
+            clientOut.release();
+        if (serverIn != null)
+            serverIn.release();
+        if (serverOut != null)
+            serverOut.release();
+        if (arena != null) {
+            // Rend tous les slabs de la session d'un coup
+            if (toServer != null)
+                toServer.discard();
+            if (toClient != null)
+                toClient.discard();
+        }
+    }
+
+    /**
+     * Mémoire tenue par la session hors objets fixes: tampons empruntés,
+     * tableaux de travail et octets en file (anneau du pipeline, files de
+     * sortie, sur le tas ou dans l'arène), estimation lue depuis un autre
+     * thread
+     */
+    public long getBufferedBytes() {
+        long bytes = 0;
+        PooledInputStream in;
+        PooledOutputStream out;
+        if ((in = clientIn) != null)
+            bytes += in.getHeldBytes();
+        if ((out = clientOut) != null)
+            bytes += out.getHeldBytes();
+        if ((in = serverIn) != null)
+            bytes += in.getHeldBytes();
+        if ((out = serverOut) != null)
+            bytes += out.getHeldBytes();
+        FrameReader reader;
+        if ((reader = clientReader) != null)
+            bytes += reader.getScratchBytes();
+        if ((reader = serverReader) != null)
+            bytes += reader.getScratchBytes();
+        bytes += relay.getScratchBytes();
+        SpscRing ring;
+        if ((ring = fromServer) != null)
+            bytes += ring.getQueuedBytes();
+        WriteQueue queue;
+        if ((queue = toServer) != null)
+            bytes += queue.getQueuedBytes();
+        if ((queue = toClient) != null)
+            bytes += queue.getQueuedBytes();
+        return bytes;
+    }
+
+    /**
+     * Octets hors tas réservés par l'arène de la session (slabs entiers)
+     */
+    public long getOffHeapBytes() {
+        return arena != null ? arena.getReservedBytes() : 0;
+    }
+
+    public boolean isPlaying() {
+        return connectionState == 3;
+    }
+
+    public static BufferPool getBufferPool() {
+        return BUFFERS;
+    }
+
+    public static ZlibPool getZlibPool() {
+        return ZLIB;
+    }
+
+    public static ZlibOffload getZlibOffload() {
+        return ZLIB_OFFLOAD;
+    }
+
+    public static RelayExecutor getRelayExecutor() {
+        return RELAY;
+    }
+
     // Classe interne pour les données de paquet
     private static class PacketData {
         final int packetId;
@@ -61,10 +61,22 @@ public class VelocityModifier {
      * @return tableau [newVelX, newVelY, newVelZ]
      */
     public short[] modifyVelocity(short velX, short velY, short velZ) {
-        short newX = clampShort((int) (velX * multiplierX.get()));
-        short newY = clampShort((int) (velY * multiplierY.get()));
-        short newZ = clampShort((int) (velZ * multiplierZ.get()));
-        return new short[] { newX, newY, newZ };
+        return new short[] { modifyX(velX), modifyY(velY), modifyZ(velZ) };
+    }
+
+    /**
+     * Comme modifyVelocity, un axe à la fois (sans tableau, pour le relay)
+     */
+    public short modifyX(short velX) {
+        return clampShort((int) (velX * multiplierX.get()));
+    }
+
+    public short modifyY(short velY) {
+        return clampShort((int) (velY * multiplierY.get()));
+    }
+
+    public short modifyZ(short velZ) {
+        return clampShort((int) (velZ * multiplierZ.get()));
     }
 
     private short clampShort(int value) {
@@ -1,11 +1,17 @@
 package com.reverseaz.auth;
 
 import javax.crypto.Cipher;
-import java.io.*;
+import javax.crypto.ShortBufferException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 
 /**
  * Wrapper pour les flux chiffrés AES/CFB8
  * Minecraft chiffre le flux complet après l'Encryption Response
+ *
+ * Le sens écriture passe par PooledOutputStream avec un Cipher (chiffrement
+ * du lot au flush)
  */
 public class CipherStreams {
 
@@ -13,7 +19,14 @@ public class CipherStreams {
      * InputStream qui déchiffre les données reçues
      */
     public static class DecryptingInputStream extends FilterInputStream {
+        // CFB8: un octet chiffré donne un octet clair. Lecture directe dans le
+        // tableau de l'appelant, déchiffrée sur place par tranches via scratch
+        // (Cipher recopie l'entrée si elle chevauche la sortie): aucune
+        // allocation par lecture
+        private static final int SCRATCH_BYTES = 512;
+
         private final Cipher cipher;
+        private final byte[] scratch = new byte[SCRATCH_BYTES];
 
         public DecryptingInputStream(InputStream in, byte[] sharedSecret) throws Exception {
             super(in);
@@ -26,58 +39,32 @@ public class CipherStreams {
             if (b == -1)
                 return -1;
 
-            byte[] single = new byte[] { (byte) b };
-            byte[] decrypted = cipher.update(single);
-            return decrypted != null && decrypted.length > 0 ? (decrypted[0] & 0xFF) : -1;
+            scratch[0] = (byte) b;
+            decrypt(scratch, 0, 1, scratch, 1);
+            return scratch[1] & 0xFF;
         }
 
         @Override
         public int read(byte[] b, int off, int len) throws IOException {
-            byte[] encrypted = new byte[len];
-            int bytesRead = in.read(encrypted, 0, len);
-            if (bytesRead == -1)
-                return -1;
+            int bytesRead = in.read(b, off, len);
+            if (bytesRead <= 0)
+                return bytesRead;
 
-            byte[] decrypted = cipher.update(encrypted, 0, bytesRead);
-            if (decrypted != null) {
-                System.arraycopy(decrypted, 0, b, off, decrypted.length);
-                return decrypted.length;
+            for (int done = 0; done < bytesRead; done += SCRATCH_BYTES) {
+                int slice = Math.min(SCRATCH_BYTES, bytesRead - done);
+                System.arraycopy(b, off + done, scratch, 0, slice);
+                decrypt(scratch, 0, slice, b, off + done);
             }
-            return 0;
-        }
-    }
-
-    /**
-     * OutputStream qui chiffre les données envoyées
-     */
-    public static class EncryptingOutputStream extends FilterOutputStream {
-        private final Cipher cipher;
-
-        public EncryptingOutputStream(OutputStream out, byte[] sharedSecret) throws Exception {
-            super(out);
-            this.cipher = EncryptionUtil.createAESCipher(Cipher.ENCRYPT_MODE, sharedSecret);
+            return bytesRead;
         }
 
-        @Override
-        public void write(int b) throws IOException {
-            byte[] single = new byte[] { (byte) b };
-            byte[] encrypted = cipher.update(single);
-            if (encrypted != null) {
-                out.write(encrypted);
-            }
-        }
-
-        @Override
-        public void write(byte[] b, int off, int len) throws IOException {
-            byte[] encrypted = cipher.update(b, off, len);
-            if (encrypted != null) {
-                out.write(encrypted);
+        private void decrypt(byte[] input, int inputOffset, int length, byte[] output, int outputOffset)
+                throws IOException {
+            try {
+                cipher.update(input, inputOffset, length, output, outputOffset);
+            } catch (ShortBufferException e) {
+                throw new IOException("Déchiffrement impossible", e);
             }
         }
-
-        @Override
-        public void flush() throws IOException {
-            out.flush();
-        }
     }
 }
@@ -4,23 +4,62 @@ import javax.crypto.Cipher;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.security.*;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Gère l'encryption Minecraft (RSA + AES/CFB8)
  */
 public class EncryptionUtil {
 
+    // Nombre max de clés serveur gardées en cache (une par backend en pratique)
+    private static final int PUBLIC_KEY_CACHE_SIZE = 64;
+
+    // SecureRandom est thread-safe: une seule instance, seedée une fois
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Clés publiques déjà parsées, indexées par leur encodage X.509
+    private static final Map<ByteBuffer, PublicKey> PUBLIC_KEYS = new ConcurrentHashMap<>();
+
+    // Cipher RSA réutilisé par thread (Cipher n'est pas thread-safe)
+    private static final ThreadLocal<Cipher> RSA_CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance("RSA/ECB/PKCS1Padding");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("RSA/ECB/PKCS1Padding indisponible", e);
+        }
+    });
+
     /**
      * Génère un shared secret aléatoire de 16 bytes pour AES
      */
     public static byte[] generateSharedSecret() {
         byte[] secret = new byte[16];
-        new SecureRandom().nextBytes(secret);
+        RANDOM.nextBytes(secret);
         return secret;
     }
 
+    /**
+     * Parse une clé publique X.509/DER, avec cache partagé entre sessions: un
+     * serveur présente toujours la même clé, elle n'est parsée qu'une fois
+     */
+    public static PublicKey parsePublicKey(byte[] publicKeyBytes) throws GeneralSecurityException {
+        PublicKey publicKey = PUBLIC_KEYS.get(ByteBuffer.wrap(publicKeyBytes));
+        if (publicKey == null) {
+            KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+            publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(publicKeyBytes));
+            if (PUBLIC_KEYS.size() >= PUBLIC_KEY_CACHE_SIZE) {
+                PUBLIC_KEYS.clear();
+            }
+            // Copie: la clé du cache ne doit pas dépendre du tableau de l'appelant
+            PUBLIC_KEYS.put(ByteBuffer.wrap(publicKeyBytes.clone()), publicKey);
+        }
+        return publicKey;
+    }
+
     /**
      * Chiffre le shared secret avec la clé publique RSA du serveur
      * 
@@ -28,12 +67,15 @@ public class EncryptionUtil {
      * @param data           données à chiffrer (shared secret ou verify token)
      */
     public static byte[] encryptRSA(byte[] publicKeyBytes, byte[] data) throws Exception {
-        KeyFactory keyFactory = KeyFactory.getInstance("RSA");
-        X509EncodedKeySpec keySpec = new X509EncodedKeySpec(publicKeyBytes);
-        PublicKey publicKey = keyFactory.generatePublic(keySpec);
+        return encryptRSA(parsePublicKey(publicKeyBytes), data);
+    }
 
-        Cipher cipher = Cipher.getInstance("RSA/ECB/PKCS1Padding");
-        cipher.init(Cipher.ENCRYPT_MODE, publicKey);
+    /**
+     * Chiffre avec une clé déjà parsée, via le Cipher RSA du thread courant
+     */
+    public static byte[] encryptRSA(PublicKey publicKey, byte[] data) throws GeneralSecurityException {
+        Cipher cipher = RSA_CIPHER.get();
+        cipher.init(Cipher.ENCRYPT_MODE, publicKey, RANDOM);
         return cipher.doFinal(data);
     }
 
@@ -1,9 +1,6 @@
 package com.reverseaz.auth;
 
-import java.io.*;
-import java.net.*;
-import java.nio.charset.StandardCharsets;
-import java.util.UUID;
+import java.util.concurrent.*;
 
 /**
  * Authentification Mojang/Microsoft pour les serveurs online-mode
@@ -13,63 +10,147 @@ public class MojangAuth {
     private static final String SESSION_SERVER = "https://sessionserver.mojang.com/session/minecraft/join";
     private static final String PROFILE_API = "https://api.minecraftservices.com/minecraft/profile";
 
-    private String accessToken;
-    private String playerName;
-    private String playerUUID;
+    // Surchargeables (-Dreverseaz.sessionServer=..., -Dreverseaz.profileApi=...) pour un stub local
+    private String sessionServer = System.getProperty("reverseaz.sessionServer", SESSION_SERVER);
+    private String profileApi = System.getProperty("reverseaz.profileApi", PROFILE_API);
+
+    private final MojangHttpClient http = MojangHttpClient.shared();
+    private final ProfileCache profileCache = ProfileCache.getDefault();
+
+    private volatile String accessToken;
+    private volatile String playerName;
+    private volatile String playerUUID;
+    private volatile CompletableFuture<Boolean> pendingProfile = CompletableFuture.completedFuture(false);
 
     public MojangAuth() {
     }
 
+    /**
+     * Change l'URL du endpoint "join" du serveur de session
+     */
+    public void setSessionServer(String url) {
+        this.sessionServer = url;
+    }
+
+    /**
+     * Change l'URL de l'API de profil
+     */
+    public void setProfileApi(String url) {
+        this.profileApi = url;
+    }
+
     /**
      * Configure le token d'accès (Bearer token de minecraft.net)
+     * Le profil en cache disque pour ce token, s'il est encore frais, est
+     * utilisable immédiatement
      */
     public void setAccessToken(String token) {
         this.accessToken = token;
+        this.playerName = null;
+        this.playerUUID = null;
+
+        if (token != null && !token.isEmpty()) {
+            String[] cached = profileCache.get(token);
+            if (cached != null) {
+                playerName = cached[0];
+                playerUUID = cached[1];
+                System.out.println("[Auth] Profil en cache: " + playerName + " (" + playerUUID + ")");
+            }
+        }
     }
 
     /**
-     * Récupère le profil du joueur à partir du token
+     * Récupère le profil du joueur à partir du token (bloquant)
      * 
      * @return true si succès
      */
     public boolean fetchProfile() {
-        if (accessToken == null || accessToken.isEmpty()) {
+        return fetchProfileAsync().join();
+    }
+
+    /**
+     * Récupère le profil en arrière-plan. Les sessions de login qui arrivent
+     * pendant le fetch l'attendent via awaitProfile()
+     *
+     * @return future complété à true si le profil a été récupéré
+     */
+    public CompletableFuture<Boolean> fetchProfileAsync() {
+        String token = accessToken;
+        if (token == null || token.isEmpty()) {
             System.out.println("[Auth] Pas de token configuré");
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
 
-        try {
-            URL url = new URL(PROFILE_API);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-            conn.setRequestProperty("Authorization", "Bearer " + accessToken);
-            conn.setConnectTimeout(10000);
-            conn.setReadTimeout(10000);
-
-            int code = conn.getResponseCode();
-            if (code != 200) {
-                System.out.println("[Auth] Erreur profil: HTTP " + code);
-                return false;
-            }
+        CompletableFuture<Boolean> future = http.sendAsync("GET", profileApi, token, null)
+                .handle((response, error) -> applyProfile(token, response, error));
+        pendingProfile = future;
+        return future;
+    }
 
-            String response = readResponse(conn.getInputStream());
+    /**
+     * Attend la fin d'un fetch de profil en cours, sauf si un profil (éventuellement
+     * en cache) est déjà disponible
+     *
+     * @param timeoutMillis attente max
+     */
+    public void awaitProfile(long timeoutMillis) {
+        CompletableFuture<Boolean> future = pendingProfile;
+        if (playerUUID != null || future.isDone())
+            return;
+        try {
+            future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            System.out.println("[Auth] Profil toujours en cours de récupération après " + timeoutMillis + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ignored) {
+        }
+    }
 
-            // Parse JSON simple (sans dépendance)
-            playerName = extractJsonValue(response, "name");
-            playerUUID = extractJsonValue(response, "id");
+    private boolean applyProfile(String token, MojangHttpClient.Response response, Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause()
+                    : error;
+            System.out.println("[Auth] Erreur: " + cause.getMessage() + keptFromCache());
+            return false;
+        }
 
-            if (playerName != null && playerUUID != null) {
-                System.out.println("[Auth] Profil récupéré: " + playerName + " (" + playerUUID + ")");
-                return true;
+        if (response.code == 401 || response.code == 403) {
+            // Token refusé: le profil en cache ne vaut plus rien
+            System.out.println("[Auth] Token refusé: HTTP " + response.code);
+            profileCache.remove(token);
+            if (token.equals(accessToken)) {
+                playerName = null;
+                playerUUID = null;
             }
-
-            System.out.println("[Auth] Profil invalide: " + response);
             return false;
-
-        } catch (Exception e) {
-            System.out.println("[Auth] Erreur: " + e.getMessage());
+        }
+        if (response.code != 200) {
+            System.out.println("[Auth] Erreur profil: HTTP " + response.code + keptFromCache());
             return false;
         }
+
+        // Parse JSON simple (sans dépendance)
+        String name = extractJsonValue(response.body, "name");
+        String uuid = extractJsonValue(response.body, "id");
+
+        if (name != null && uuid != null) {
+            if (token.equals(accessToken)) {
+                playerName = name;
+                playerUUID = uuid;
+            }
+            profileCache.put(token, name, uuid);
+            System.out.println("[Auth] Profil récupéré: " + name + " (" + uuid + ")");
+            return true;
+        }
+
+        System.out.println("[Auth] Profil invalide: " + response.body);
+        return false;
+    }
+
+    private String keptFromCache() {
+        return playerUUID != null ? " - profil en cache conservé (" + playerName + ")" : "";
     }
 
     /**
@@ -77,45 +158,49 @@ public class MojangAuth {
      * Doit être appelé AVANT d'envoyer le paquet Encryption Response
      */
     public boolean joinServer(String serverHash) {
+        return joinServerAsync(serverHash).join();
+    }
+
+    /**
+     * Version asynchrone de joinServer: la requête part sur le client HTTP
+     * partagé, le résultat (true si succès) arrive dans le future
+     */
+    public CompletableFuture<Boolean> joinServerAsync(String serverHash) {
         if (accessToken == null || playerUUID == null) {
             System.out.println("[Auth] Token ou UUID manquant");
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
 
-        try {
-            URL url = new URL(SESSION_SERVER);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/json");
-            conn.setDoOutput(true);
-            conn.setConnectTimeout(10000);
-            conn.setReadTimeout(10000);
-
-            // JSON payload
-            String json = String.format(
-                    "{\"accessToken\":\"%s\",\"selectedProfile\":\"%s\",\"serverId\":\"%s\"}",
-                    accessToken,
-                    playerUUID,
-                    serverHash);
-
-            try (OutputStream os = conn.getOutputStream()) {
-                os.write(json.getBytes(StandardCharsets.UTF_8));
+        // JSON payload
+        String json = String.format(
+                "{\"accessToken\":\"%s\",\"selectedProfile\":\"%s\",\"serverId\":\"%s\"}",
+                accessToken,
+                playerUUID,
+                serverHash);
+
+        return http.sendAsync("POST", sessionServer, null, json).handle((response, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error;
+                System.out.println("[Auth] Erreur join: " + cause.getMessage());
+                return false;
             }
-
-            int code = conn.getResponseCode();
-            if (code == 204 || code == 200) {
+            if (response.code == 204 || response.code == 200) {
                 System.out.println("[Auth] Session join réussi!");
                 return true;
             }
-
-            String error = readResponse(conn.getErrorStream());
-            System.out.println("[Auth] Erreur join: HTTP " + code + " - " + error);
+            System.out.println("[Auth] Erreur join: HTTP " + response.code + " - " + response.body);
             return false;
+        });
+    }
 
-        } catch (Exception e) {
-            System.out.println("[Auth] Erreur join: " + e.getMessage());
-            return false;
-        }
+    /**
+     * Pré-ouvre les connexions TLS vers le serveur de session et l'API de
+     * profil pour que le premier login ne paie pas le handshake
+     */
+    public void warmUp() {
+        http.warmUp(sessionServer, profileApi);
     }
 
     public String getPlayerName() {
@@ -126,21 +211,15 @@ public class MojangAuth {
         return playerUUID;
     }
 
-    public boolean hasAuth() {
-        return accessToken != null && !accessToken.isEmpty() && playerUUID != null;
+    /**
+     * Un token est configuré (le profil peut être encore en cours de récupération)
+     */
+    public boolean hasToken() {
+        return accessToken != null && !accessToken.isEmpty();
     }
 
-    private String readResponse(InputStream is) throws IOException {
-        if (is == null)
-            return "";
-        BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
-        StringBuilder sb = new StringBuilder();
-        String line;
-        while ((line = reader.readLine()) != null) {
-            sb.append(line);
-        }
-        reader.close();
-        return sb.toString();
+    public boolean hasAuth() {
+        return accessToken != null && !accessToken.isEmpty() && playerUUID != null;
     }
 
     /**
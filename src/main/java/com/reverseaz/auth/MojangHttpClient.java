@@ -0,0 +1,169 @@
+package com.reverseaz.auth;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+/**
+ * Client HTTP partagé pour les appels Mojang (profil, session join)
+ *
+ * - Connexions keep-alive réutilisées: pas de handshake TLS à chaque login
+ * - Concurrence bornée: une rafale de reconnexions ne sature pas le réseau.
+ *   Les requêtes asynchrones au-delà de la borne attendent dans une file et
+ *   partent quand une requête se termine (aucun thread bloqué sur un permis)
+ * - Appels asynchrones pour ne pas bloquer le thread de session
+ *
+ * Sur Java 11+ utilise java.net.http.HttpClient (pool + HTTP/2), sinon
+ * HttpURLConnection et son cache keep-alive.
+ */
+public abstract class MojangHttpClient {
+
+    static final int TIMEOUT_MS = 10000;
+    private static final String JDK_CLIENT = "com.reverseaz.auth.JdkMojangHttpClient";
+    private static final int DEFAULT_MAX_CONCURRENT = Integer.getInteger("reverseaz.http.maxConcurrent", 16);
+
+    private final Semaphore permits;
+    // Requêtes asynchrones en attente d'un permis
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    protected MojangHttpClient(int maxConcurrent) {
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Client partagé par toutes les instances MojangAuth du processus
+     */
+    public static MojangHttpClient shared() {
+        return Holder.INSTANCE;
+    }
+
+    private static class Holder {
+        static final MojangHttpClient INSTANCE = create(DEFAULT_MAX_CONCURRENT);
+    }
+
+    /**
+     * Crée le meilleur client disponible pour la JVM courante
+     *
+     * @param maxConcurrent nombre max de requêtes simultanées
+     */
+    public static MojangHttpClient create(int maxConcurrent) {
+        if ("urlconnection".equals(System.getProperty("reverseaz.http.client"))) {
+            return new UrlConnectionHttpClient(maxConcurrent);
+        }
+        try {
+            Class.forName("java.net.http.HttpClient");
+            return (MojangHttpClient) Class.forName(JDK_CLIENT).getConstructor(int.class)
+                    .newInstance(maxConcurrent);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new UrlConnectionHttpClient(maxConcurrent);
+        }
+    }
+
+    /**
+     * Requête bloquante (respecte la borne de concurrence)
+     *
+     * @param method      GET, POST ou HEAD
+     * @param bearerToken token Authorization, ou null
+     * @param jsonBody    corps JSON pour POST, ou null
+     */
+    public Response send(String method, String url, String bearerToken, String jsonBody) throws IOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrompu en attente d'un slot HTTP", e);
+        }
+        try {
+            return execute(method, url, bearerToken, jsonBody);
+        } finally {
+            releasePermit();
+        }
+    }
+
+    /**
+     * Requête asynchrone: ni le thread appelant ni un thread du client ne
+     * sont bloqués en attente d'un permis
+     */
+    public CompletableFuture<Response> sendAsync(String method, String url, String bearerToken, String jsonBody) {
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        Runnable start = () -> {
+            CompletableFuture<Response> call;
+            try {
+                call = executeAsync(method, url, bearerToken, jsonBody);
+            } catch (Throwable t) {
+                call = new CompletableFuture<>();
+                call.completeExceptionally(t);
+            }
+            call.whenComplete((response, error) -> {
+                releasePermit();
+                if (error != null)
+                    future.completeExceptionally(error);
+                else
+                    future.complete(response);
+            });
+        };
+        if (permits.tryAcquire()) {
+            start.run();
+        } else {
+            waiting.add(start);
+            startWaiting();
+        }
+        return future;
+    }
+
+    /**
+     * Ouvre à l'avance les connexions (TCP + TLS) vers les hôtes donnés, en
+     * arrière-plan. Le code HTTP retourné est sans importance.
+     */
+    public void warmUp(String... urls) {
+        for (String url : urls) {
+            sendAsync("HEAD", url, null, null).exceptionally(t -> null);
+        }
+    }
+
+    /**
+     * Exécute réellement la requête, appelé avec un permis acquis
+     */
+    protected abstract Response execute(String method, String url, String bearerToken, String jsonBody)
+            throws IOException;
+
+    /**
+     * Lance la requête sans bloquer, appelé avec un permis acquis (rendu à la
+     * complétion du future)
+     */
+    protected abstract CompletableFuture<Response> executeAsync(String method, String url, String bearerToken,
+            String jsonBody);
+
+    private void releasePermit() {
+        permits.release();
+        startWaiting();
+    }
+
+    /**
+     * Démarre les requêtes en file tant qu'il reste des permis (appelé après
+     * chaque ajout en file et chaque permis rendu: aucun réveil perdu)
+     */
+    private void startWaiting() {
+        while (!waiting.isEmpty() && permits.tryAcquire()) {
+            Runnable next = waiting.poll();
+            if (next == null) {
+                permits.release();
+                continue;
+            }
+            next.run();
+        }
+    }
+
+    /**
+     * Réponse HTTP: code + corps (vide si absent)
+     */
+    public static class Response {
+        public final int code;
+        public final String body;
+
+        public Response(int code, String body) {
+            this.code = code;
+            this.body = body;
+        }
+    }
+}
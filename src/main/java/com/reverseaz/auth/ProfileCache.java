@@ -0,0 +1,125 @@
+package com.reverseaz.auth;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache disque du dernier profil valide (nom + UUID) par token
+ *
+ * Le token n'est jamais écrit: l'entrée est indexée par son SHA-256. Au
+ * redémarrage, un profil encore frais permet d'être "prêt" immédiatement,
+ * le vrai fetch se faisant en arrière-plan.
+ *
+ * Fichier: ~/.reverseaz/profile-cache.properties (-Dreverseaz.profileCache)
+ * TTL: 12h (-Dreverseaz.profileCacheTtlMinutes)
+ */
+public class ProfileCache {
+
+    private static final long DEFAULT_TTL_MINUTES = 12 * 60;
+
+    private static final ProfileCache DEFAULT = new ProfileCache(
+            new File(System.getProperty("reverseaz.profileCache",
+                    System.getProperty("user.home") + File.separator + ".reverseaz" + File.separator
+                            + "profile-cache.properties")),
+            TimeUnit.MINUTES.toMillis(Long.getLong("reverseaz.profileCacheTtlMinutes", DEFAULT_TTL_MINUTES)));
+
+    private final File file;
+    private final long ttlMillis;
+
+    public ProfileCache(File file, long ttlMillis) {
+        this.file = file;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public static ProfileCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return [name, uuid] si une entrée fraîche existe pour ce token, sinon null
+     */
+    public synchronized String[] get(String accessToken) {
+        Properties props = load();
+        String key = hash(accessToken);
+        String name = props.getProperty(key + ".name");
+        String uuid = props.getProperty(key + ".uuid");
+        String time = props.getProperty(key + ".time");
+        if (name == null || uuid == null || time == null)
+            return null;
+        try {
+            if (System.currentTimeMillis() - Long.parseLong(time) > ttlMillis)
+                return null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return new String[] { name, uuid };
+    }
+
+    public synchronized void put(String accessToken, String name, String uuid) {
+        Properties props = load();
+        String key = hash(accessToken);
+        props.setProperty(key + ".name", name);
+        props.setProperty(key + ".uuid", uuid);
+        props.setProperty(key + ".time", String.valueOf(System.currentTimeMillis()));
+        store(props);
+    }
+
+    public synchronized void remove(String accessToken) {
+        Properties props = load();
+        String key = hash(accessToken);
+        if (props.remove(key + ".name") != null | props.remove(key + ".uuid") != null
+                | props.remove(key + ".time") != null) {
+            store(props);
+        }
+    }
+
+    private Properties load() {
+        Properties props = new Properties();
+        if (file.isFile()) {
+            try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+                props.load(reader);
+            } catch (IOException e) {
+                System.out.println("[Auth] Cache profil illisible: " + e.getMessage());
+            }
+        }
+        return props;
+    }
+
+    private void store(Properties props) {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            System.out.println("[Auth] Impossible de créer " + dir);
+            return;
+        }
+        // Écriture dans un fichier temporaire puis renommage: jamais de cache à moitié écrit
+        File tmp = new File(file.getAbsolutePath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            props.store(writer, "ReverseAZ - profils en cache (clé = SHA-256 du token)");
+        } catch (IOException e) {
+            System.out.println("[Auth] Écriture cache profil échouée: " + e.getMessage());
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            file.delete();
+            if (!tmp.renameTo(file))
+                System.out.println("[Auth] Écriture cache profil échouée: renommage " + tmp);
+        }
+    }
+
+    private static String hash(String accessToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(accessToken.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
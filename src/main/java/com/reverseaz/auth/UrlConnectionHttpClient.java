@@ -0,0 +1,95 @@
+package com.reverseaz.auth;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implémentation Java 8: HttpURLConnection garde la connexion TLS dans son
+ * cache keep-alive à condition que le corps de la réponse soit lu jusqu'au
+ * bout et que disconnect() ne soit jamais appelé
+ *
+ * HttpURLConnection est bloquant: les requêtes asynchrones tournent sur un
+ * pool de maxConcurrent threads (autant que de permis, donc jamais plus de
+ * requêtes en cours que de threads)
+ */
+class UrlConnectionHttpClient extends MojangHttpClient {
+
+    private final ThreadPoolExecutor dispatcher;
+
+    UrlConnectionHttpClient(int maxConcurrent) {
+        super(maxConcurrent);
+        AtomicInteger counter = new AtomicInteger();
+        this.dispatcher = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "Mojang-HTTP-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        dispatcher.allowCoreThreadTimeOut(true);
+        // Taille du cache keep-alive par hôte (défaut JDK: 5), lue à la première connexion
+        if (System.getProperty("http.maxConnections") == null) {
+            System.setProperty("http.maxConnections", String.valueOf(maxConcurrent));
+        }
+    }
+
+    @Override
+    protected Response execute(String method, String url, String bearerToken, String jsonBody) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        conn.setRequestMethod(method);
+        conn.setConnectTimeout(TIMEOUT_MS);
+        conn.setReadTimeout(TIMEOUT_MS);
+        if (bearerToken != null) {
+            conn.setRequestProperty("Authorization", "Bearer " + bearerToken);
+        }
+
+        if (jsonBody != null) {
+            conn.setRequestProperty("Content-Type", "application/json");
+            conn.setDoOutput(true);
+            try (OutputStream os = conn.getOutputStream()) {
+                os.write(jsonBody.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        int code = conn.getResponseCode();
+        InputStream body = code >= 400 ? conn.getErrorStream() : conn.getInputStream();
+        return new Response(code, drain(body));
+    }
+
+    @Override
+    protected CompletableFuture<Response> executeAsync(String method, String url, String bearerToken,
+            String jsonBody) {
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        dispatcher.execute(() -> {
+            try {
+                future.complete(execute(method, url, bearerToken, jsonBody));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Lit entièrement le corps pour rendre la connexion au cache keep-alive
+     */
+    private static String drain(InputStream is) throws IOException {
+        if (is == null)
+            return "";
+        try (InputStream in = is) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.reverseaz.net;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool de connexions TCP déjà établies vers un backend
+ *
+ * Une session prend un socket "chaud" au lieu de payer le connect (utile
+ * quand le lien vers le serveur a une latence élevée). La taille cible suit
+ * le débit récent de logins: assez de sockets pour couvrir les arrivées
+ * pendant le temps d'un connect, bornée par [min, max].
+ *
+ * Les sockets inutilisés sont fermés après idleMillis, avant que le serveur
+ * ne coupe lui-même une connexion muette (timeout de lecture vanilla: 30s).
+ * Le serveur peut aussi l'avoir fermée avant (redémarrage, timeout plus
+ * court): chaque socket est sondé avant d'être rendu (lecture de 1 ms qui
+ * doit expirer), un socket fermé est remplacé par une connexion neuve.
+ *
+ * Avec min > 0, le pool garde ce nombre de sockets même sans trafic: un
+ * connect/close par backend toutes les idleMs tant que le proxy tourne.
+ *
+ * Config: -Dreverseaz.backendPool.min (0), .max (8, 0 = désactivé),
+ * .idleMs (15000)
+ */
+public class BackendPool {
+
+    private static final long TICK_MS = 1000;
+    private static final int PROBE_TIMEOUT_MS = 1;
+    // Lissage du débit d'arrivée (par tick d'une seconde)
+    private static final double RATE_ALPHA = 0.3;
+    private static final double CONNECT_ALPHA = 0.2;
+    // Demande (sockets) en dessous de laquelle le trafic est considéré arrêté:
+    // sans ce plancher, ceil() garde un socket tant que le débit lissé n'est
+    // pas exactement nul (~35 min après un seul login)
+    private static final double MIN_DEMAND = 0.1;
+
+    private static final ScheduledExecutorService MAINTENANCE = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Backend-Pool");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final BackendTarget target;
+    private final int minIdle;
+    private final int maxIdle;
+    private final long idleMillis;
+
+    private final ConcurrentLinkedDeque<IdleSocket> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger arrivals = new AtomicInteger();
+    private final ScheduledFuture<?> task;
+
+    private volatile double arrivalRate;
+    private volatile double connectMillis = 50;
+    private volatile int targetSize;
+    private volatile boolean closed;
+
+    public BackendPool(BackendTarget target, int minIdle, int maxIdle, long idleMillis) {
+        this.target = target;
+        this.minIdle = Math.min(minIdle, maxIdle);
+        this.maxIdle = maxIdle;
+        this.idleMillis = idleMillis;
+        this.targetSize = this.minIdle;
+        this.task = MAINTENANCE.scheduleWithFixedDelay(this::maintain, 0, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Socket prêt à l'emploi: pris dans le pool, sinon connexion en arrière-plan
+     */
+    public CompletableFuture<Socket> acquire() {
+        arrivals.incrementAndGet();
+        long now = System.currentTimeMillis();
+        IdleSocket entry;
+        while ((entry = idle.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+            if (now - entry.since < idleMillis && isUsable(entry.socket)) {
+                refill();
+                return CompletableFuture.completedFuture(entry.socket);
+            }
+            closeQuietly(entry.socket);
+        }
+        refill();
+        return target.connectAsync();
+    }
+
+    /**
+     * Ferme les sockets inutilisés et arrête la maintenance
+     */
+    public void close() {
+        closed = true;
+        task.cancel(false);
+        IdleSocket entry;
+        while ((entry = idle.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+            closeQuietly(entry.socket);
+        }
+    }
+
+    public int getIdleCount() {
+        return idleCount.get();
+    }
+
+    public int getTargetSize() {
+        return targetSize;
+    }
+
+    /**
+     * Tick de maintenance (une fois par seconde)
+     */
+    void maintain() {
+        // Débit d'arrivée lissé, en connexions/seconde
+        int recent = arrivals.getAndSet(0);
+        double rate = arrivalRate * (1 - RATE_ALPHA) + recent * (1000.0 / TICK_MS) * RATE_ALPHA;
+
+        // Couvrir les arrivées pendant un connect (au moins une seconde d'avance)
+        double horizonSeconds = Math.max(1.0, 2 * connectMillis / 1000.0);
+        double demand = rate * horizonSeconds;
+        if (demand < MIN_DEMAND) {
+            rate = 0;
+            demand = 0;
+        }
+        arrivalRate = rate;
+        targetSize = Math.max(minIdle, Math.min(maxIdle, (int) Math.ceil(demand)));
+
+        // Le socket le plus ancien est en tête de file
+        long now = System.currentTimeMillis();
+        IdleSocket oldest;
+        while ((oldest = idle.peekFirst()) != null && now - oldest.since >= idleMillis) {
+            if (idle.remove(oldest)) {
+                idleCount.decrementAndGet();
+                closeQuietly(oldest.socket);
+            }
+        }
+        // Rétrécir si le débit a baissé
+        while (idleCount.get() > targetSize) {
+            IdleSocket entry = idle.pollFirst();
+            if (entry == null)
+                break;
+            idleCount.decrementAndGet();
+            closeQuietly(entry.socket);
+        }
+        refill();
+    }
+
+    /**
+     * Lance les connexions manquantes pour atteindre la taille cible
+     */
+    private void refill() {
+        while (!closed) {
+            int inFlight = pending.get();
+            if (idleCount.get() + inFlight >= targetSize)
+                return;
+            if (!pending.compareAndSet(inFlight, inFlight + 1))
+                continue;
+
+            long start = System.nanoTime();
+            target.connectAsync().whenComplete((socket, error) -> {
+                pending.decrementAndGet();
+                if (error != null)
+                    return;
+                connectMillis = connectMillis * (1 - CONNECT_ALPHA)
+                        + (System.nanoTime() - start) / 1e6 * CONNECT_ALPHA;
+                if (closed) {
+                    closeQuietly(socket);
+                    return;
+                }
+                idle.addLast(new IdleSocket(socket, System.currentTimeMillis()));
+                idleCount.incrementAndGet();
+            });
+        }
+    }
+
+    /**
+     * État local, puis sonde: le serveur n'envoie rien avant le handshake,
+     * une lecture doit donc expirer. Fin de flux, octet reçu ou erreur: le
+     * serveur a fermé (ou le flux est incohérent), socket inutilisable
+     */
+    private static boolean isUsable(Socket socket) {
+        if (socket.isClosed() || socket.isInputShutdown() || !socket.isConnected())
+            return false;
+        try {
+            socket.setSoTimeout(PROBE_TIMEOUT_MS);
+            try {
+                socket.getInputStream().read();
+                return false;
+            } catch (SocketTimeoutException expected) {
+                socket.setSoTimeout(0);
+                return true;
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static class IdleSocket {
+        final Socket socket;
+        final long since;
+
+        IdleSocket(Socket socket, long since) {
+            this.socket = socket;
+            this.since = since;
+        }
+    }
+}
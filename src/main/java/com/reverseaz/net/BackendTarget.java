@@ -0,0 +1,178 @@
+package com.reverseaz.net;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serveur cible (host:port) et tout ce qui s'y rattache: adresse résolue en
+ * cache, connexions sortantes (pool de sockets pré-connectés) et cache de status
+ */
+public class BackendTarget {
+
+    private static final int CONNECT_TIMEOUT_MS = 10000;
+    // Re-résolution DNS périodique (l'adresse peut changer derrière le hostname)
+    private static final long RESOLVE_TTL_MS = 300000;
+
+    private static final int POOL_MIN = Integer.getInteger("reverseaz.backendPool.min", 0);
+    private static final int POOL_MAX = Integer.getInteger("reverseaz.backendPool.max", 8);
+    private static final long POOL_IDLE_MS = Long.getLong("reverseaz.backendPool.idleMs", 15000);
+
+    private static final AtomicInteger CONNECTOR_THREADS = new AtomicInteger();
+
+    // Pool partagé pour les connexions asynchrones (threads réutilisés)
+    private static final ExecutorService CONNECTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "Backend-Connect-" + CONNECTOR_THREADS.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String host;
+    private final int port;
+    private final StatusCache statusCache;
+    private final BackendPool pool;
+    private final AtomicInteger activeSessions = new AtomicInteger();
+
+    private volatile InetSocketAddress resolved;
+    private volatile long resolvedAt;
+    // Temps de connexion moyen (EWMA), un échec compte comme un timeout
+    private volatile double connectLatencyMillis;
+
+    public BackendTarget(String host, int port, long statusTtlMillis) {
+        this.host = host;
+        this.port = port;
+        this.statusCache = new StatusCache(this, statusTtlMillis);
+        this.pool = POOL_MAX > 0 ? new BackendPool(this, POOL_MIN, POOL_MAX, POOL_IDLE_MS) : null;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public StatusCache getStatusCache() {
+        return statusCache;
+    }
+
+    /**
+     * Adresse résolue, en cache pendant RESOLVE_TTL_MS
+     */
+    public InetSocketAddress getAddress() throws UnknownHostException {
+        InetSocketAddress address = resolved;
+        if (address == null || System.currentTimeMillis() - resolvedAt > RESOLVE_TTL_MS) {
+            address = new InetSocketAddress(InetAddress.getByName(host), port);
+            resolved = address;
+            resolvedAt = System.currentTimeMillis();
+        }
+        return address;
+    }
+
+    /**
+     * Ouvre une connexion configurée (TCP_NODELAY) vers le serveur
+     */
+    public Socket connect() throws IOException {
+        return connect(CONNECT_TIMEOUT_MS);
+    }
+
+    /**
+     * Comme connect(), avec un timeout de connexion donné
+     */
+    public Socket connect(int timeoutMillis) throws IOException {
+        Socket socket = new Socket();
+        long start = System.nanoTime();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.connect(getAddress(), timeoutMillis);
+            recordConnect((System.nanoTime() - start) / 1e6);
+            return socket;
+        } catch (IOException e) {
+            recordConnect(timeoutMillis);
+            // L'adresse a peut-être changé: forcer une nouvelle résolution
+            resolved = null;
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+            throw e;
+        }
+    }
+
+    private void recordConnect(double millis) {
+        double previous = connectLatencyMillis;
+        connectLatencyMillis = previous == 0 ? millis : previous * 0.8 + millis * 0.2;
+    }
+
+    /**
+     * Temps de connexion moyen en ms (0 tant qu'aucune connexion n'a eu lieu)
+     */
+    public double getConnectLatencyMillis() {
+        return connectLatencyMillis;
+    }
+
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    /**
+     * Session de jeu routée vers ce backend (pour le load balancing)
+     */
+    public void sessionOpened() {
+        activeSessions.incrementAndGet();
+    }
+
+    public void sessionClosed() {
+        activeSessions.decrementAndGet();
+    }
+
+    /**
+     * Connexion en arrière-plan, pour la recouvrir avec la lecture du client
+     */
+    public CompletableFuture<Socket> connectAsync() {
+        CompletableFuture<Socket> future = new CompletableFuture<>();
+        CONNECTOR.execute(() -> {
+            try {
+                future.complete(connect());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Connexion pour une nouvelle session: socket pré-connecté si disponible
+     */
+    public CompletableFuture<Socket> acquire() {
+        return pool != null ? pool.acquire() : connectAsync();
+    }
+
+    /**
+     * @return le pool de connexions, ou null s'il est désactivé
+     */
+    public BackendPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Ferme les connexions pré-établies et arrête le rafraîchissement du status
+     */
+    public void close() {
+        if (pool != null)
+            pool.close();
+        statusCache.close();
+    }
+
+    @Override
+    public String toString() {
+        return host + ":" + port;
+    }
+}
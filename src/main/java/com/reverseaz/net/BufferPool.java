@@ -0,0 +1,96 @@
+package com.reverseaz.net;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Réserve de tampons de taille fixe partagée par toutes les sessions
+ *
+ * Un tampon est emprunté pour une lecture ou des octets à écrire, et rendu
+ * dès qu'il est vide: une session inactive ne tient que ceux de ses lecteurs
+ * en attente. La réserve est bornée (au-delà, les tampons rendus sont laissés au GC).
+ *
+ * Les tampons sont comptés par références (PooledBuffer); un échantillon des
+ * emprunts est suivi par un LeakDetector qui signale ceux jamais rendus.
+ */
+public class BufferPool {
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ConcurrentLinkedQueue<byte[]> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final LongAdder created = new LongAdder();
+    private final LeakDetector leakDetector;
+    private final String leakLabel;
+
+    public BufferPool(int bufferSize, int maxPooled) {
+        this(bufferSize, maxPooled, new LeakDetector());
+    }
+
+    public BufferPool(int bufferSize, int maxPooled, LeakDetector leakDetector) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+        this.leakDetector = leakDetector;
+        this.leakLabel = "tampon de " + bufferSize + " octets";
+    }
+
+    /**
+     * Emprunte un tampon (compteur de références à 1)
+     */
+    public PooledBuffer acquire() {
+        inUse.incrementAndGet();
+        byte[] array = free.poll();
+        if (array != null) {
+            pooled.decrementAndGet();
+        } else {
+            created.increment();
+            array = new byte[bufferSize];
+        }
+        PooledBuffer buffer = new PooledBuffer(this, array);
+        buffer.tracker = leakDetector.track(buffer, leakLabel);
+        return buffer;
+    }
+
+    /**
+     * Dernier release() d'un PooledBuffer
+     */
+    void recycle(byte[] buffer) {
+        inUse.decrementAndGet();
+        if (buffer.length != bufferSize)
+            return;
+        if (pooled.incrementAndGet() > maxPooled) {
+            pooled.decrementAndGet();
+            return;
+        }
+        free.offer(buffer);
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int getInUse() {
+        return inUse.get();
+    }
+
+    public int getPooled() {
+        return pooled.get();
+    }
+
+    public long getCreated() {
+        return created.sum();
+    }
+
+    public LeakDetector getLeakDetector() {
+        return leakDetector;
+    }
+
+    @Override
+    public String toString() {
+        leakDetector.reportLeaks();
+        return String.format("tampons %d Ko: en usage=%d, en réserve=%d/%d, créés=%d, %s",
+                bufferSize / 1024, getInUse(), getPooled(), maxPooled, getCreated(), leakDetector);
+    }
+}
@@ -0,0 +1,131 @@
+package com.reverseaz.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Attente active des données avant une lecture bloquante (mode basse latence,
+ * désactivé par défaut)
+ *
+ * Un read() bloquant sur un socket vide gare le thread; il faut ensuite que
+ * le noyau le réveille et que l'ordonnanceur le reprogramme quand les octets
+ * arrivent (dizaines de µs). Ici le lecteur dont le tampon est vide tourne
+ * pendant un budget borné (MAX_BUDGET_MICROS) avant la lecture bloquante:
+ * des données qui arrivent pendant ce temps sont lues sans réveil.
+ *
+ * Le spin reste en espace utilisateur (Thread.onSpinWait()). Les sockets du
+ * relay sont bloquants et partagés avec le thread écrivain, une lecture non
+ * bloquante n'est donc pas possible: le noyau n'est sondé (available(), un
+ * appel FIONREAD) qu'une fois par intervalle de sonde, soit au plus
+ * budget / intervalle + 1 appels par attente. Sur une donnée prête, le
+ * lecteur enchaîne directement sur sa lecture en bloc.
+ *
+ * Coûte un cœur par lecteur en attente: à réserver aux machines avec des
+ * cœurs libres, gain à vérifier avec la comparaison du loadtest.
+ */
+public class BusyPoll {
+
+    /** Budget max accepté, en µs */
+    public static final long MAX_BUDGET_MICROS = 1000;
+    // Écart min entre deux sondes du socket
+    private static final long PROBE_INTERVAL_NANOS = Long.getLong("reverseaz.busyPoll.probeNanos", 5000);
+
+    // Thread.onSpinWait() (Java 9+, instruction PAUSE), appelé via MethodHandle
+    // pour rester compatible Java 8 (sans effet dans ce cas)
+    private static final MethodHandle ON_SPIN_WAIT = findOnSpinWait();
+
+    private final long budgetNanos;
+
+    private final LongAdder ready = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder spinNanos = new LongAdder();
+    private final LongAdder hitWaitNanos = new LongAdder();
+
+    /**
+     * @param budgetMicros ramené à MAX_BUDGET_MICROS au-delà
+     */
+    public BusyPoll(long budgetMicros) {
+        this.budgetNanos = Math.min(budgetMicros, MAX_BUDGET_MICROS) * 1000;
+    }
+
+    /**
+     * Tourne jusqu'à ce que in ait des octets disponibles ou que le budget
+     * soit épuisé (l'appelant, dont le tampon est vide, fait ensuite sa
+     * lecture, bloquante ou non)
+     */
+    public void awaitReadable(InputStream in) throws IOException {
+        probes.increment();
+        if (in.available() > 0) {
+            ready.increment();
+            return;
+        }
+        long start = System.nanoTime();
+        long nextProbe = start + PROBE_INTERVAL_NANOS;
+        long now;
+        while (true) {
+            onSpinWait();
+            now = System.nanoTime();
+            if (now - nextProbe >= 0) {
+                probes.increment();
+                if (in.available() > 0) {
+                    hits.increment();
+                    hitWaitNanos.add(now - start);
+                    break;
+                }
+                nextProbe = now + PROBE_INTERVAL_NANOS;
+            }
+            if (now - start >= budgetNanos) {
+                misses.increment();
+                break;
+            }
+        }
+        spinNanos.add(now - start);
+    }
+
+    public long getBudgetMicros() {
+        return budgetNanos / 1000;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public String toString() {
+        long hitCount = getHits();
+        long waits = hitCount + getMisses();
+        long calls = ready.sum() + waits;
+        return String.format("busy-poll %d µs: %d lectures (%d déjà prêtes), %d attentes dont %.1f%% servies en spin"
+                + " (réveil moy. %.1f µs), spin total %.1f ms, %.1f sondes/lecture",
+                getBudgetMicros(), calls, ready.sum(), waits, waits > 0 ? hitCount * 100.0 / waits : 0.0,
+                hitCount > 0 ? hitWaitNanos.sum() / 1e3 / hitCount : 0.0, spinNanos.sum() / 1e6,
+                calls > 0 ? (double) probes.sum() / calls : 0.0);
+    }
+
+    private static void onSpinWait() {
+        if (ON_SPIN_WAIT == null)
+            return;
+        try {
+            ON_SPIN_WAIT.invokeExact();
+        } catch (Throwable ignored) {
+        }
+    }
+
+    private static MethodHandle findOnSpinWait() {
+        try {
+            return MethodHandles.lookup().findStatic(Thread.class, "onSpinWait", MethodType.methodType(void.class));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.reverseaz.net;
+
+import java.io.IOException;
+
+/**
+ * Destination des frames produites par le relay (file de sortie d'une direction)
+ */
+public interface FrameSink {
+
+    /**
+     * @param lengthPrefixed préfixer la frame par sa taille (VarInt) à l'écriture
+     */
+    void offer(byte[] data, int offset, int length, boolean lengthPrefixed) throws IOException;
+
+    /**
+     * true si offer() copie la frame: l'appelant peut alors réutiliser son
+     * tableau dès le retour (sinon le tableau appartient à la file)
+     */
+    default boolean copiesOnOffer() {
+        return false;
+    }
+}
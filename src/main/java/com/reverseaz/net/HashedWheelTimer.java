@@ -0,0 +1,190 @@
+package com.reverseaz.net;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Timer à roue (hashed wheel) partagé par toutes les sessions
+ *
+ * Planifier ou annuler coûte O(1) (ajout dans une file, sans verrou); un seul
+ * thread avance la roue d'un cran par tick et n'exécute que le seau courant.
+ * La précision est celle du tick, suffisante pour des timeouts de l'ordre de
+ * la seconde. Les tâches doivent être courtes: elles tournent sur le thread
+ * de la roue.
+ *
+ * Le thread publie aussi une horloge grossière (coarseMillis) que les
+ * sessions lisent à chaque paquet au lieu d'appeler System.nanoTime().
+ */
+public class HashedWheelTimer {
+
+    private static final int INIT = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickMillis;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final ConcurrentLinkedQueue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final long startNanos = System.nanoTime();
+
+    // Écrits uniquement par le thread de la roue
+    private volatile long tick;
+    private volatile long coarseMillis;
+
+    /**
+     * @param ticksPerWheel arrondi à la puissance de 2 supérieure
+     */
+    public HashedWheelTimer(String threadName, long tickMillis, int ticksPerWheel) {
+        this.tickMillis = tickMillis;
+        int size = Integer.highestOneBit(Math.max(2, ticksPerWheel) - 1) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++)
+            wheel[i] = new Bucket();
+        this.mask = size - 1;
+
+        Thread worker = new Thread(this::run, threadName);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Exécute task après delayMillis (arrondi au tick supérieur)
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        Timeout timeout = new Timeout(task, Math.max(1, (delayMillis + tickMillis - 1) / tickMillis));
+        pending.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Temps écoulé depuis la création du timer, à la précision du tick
+     */
+    public long coarseMillis() {
+        return coarseMillis;
+    }
+
+    private void run() {
+        while (true) {
+            long deadline = (tick + 1) * tickMillis;
+            long sleep;
+            while ((sleep = deadline - elapsedMillis()) > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            coarseMillis = elapsedMillis();
+
+            Timeout timeout;
+            while ((timeout = cancelled.poll()) != null) {
+                if (timeout.bucket != null)
+                    timeout.bucket.remove(timeout);
+            }
+            transferPending();
+
+            wheel[(int) (tick & mask)].expire(tick);
+            tick = tick + 1;
+        }
+    }
+
+    private void transferPending() {
+        // Borné: une rafale de planifications n'affame pas le tick courant
+        for (int i = 0; i < 100000; i++) {
+            Timeout timeout = pending.poll();
+            if (timeout == null)
+                return;
+            if (timeout.state.get() != INIT)
+                continue;
+            timeout.deadlineTick = tick + timeout.delayTicks;
+            wheel[(int) (timeout.deadlineTick & mask)].add(timeout);
+        }
+    }
+
+    private long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Tâche planifiée, annulable
+     */
+    public final class Timeout {
+        private final Runnable task;
+        private final long delayTicks;
+        private final AtomicInteger state = new AtomicInteger(INIT);
+
+        // Accédés uniquement par le thread de la roue
+        private long deadlineTick;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(Runnable task, long delayTicks) {
+            this.task = task;
+            this.delayTicks = delayTicks;
+        }
+
+        /**
+         * @return false si la tâche a déjà été exécutée ou annulée
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(INIT, CANCELLED))
+                return false;
+            cancelled.add(this);
+            return true;
+        }
+    }
+
+    /**
+     * Liste doublement chaînée: ajout et retrait en O(1)
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev != null)
+                timeout.prev.next = timeout.next;
+            else
+                head = timeout.next;
+            if (timeout.next != null)
+                timeout.next.prev = timeout.prev;
+            else
+                tail = timeout.prev;
+            timeout.prev = timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        void expire(long currentTick) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                // Les échéances d'un tour suivant de la roue restent dans le seau
+                if (timeout.deadlineTick <= currentTick) {
+                    remove(timeout);
+                    if (timeout.state.compareAndSet(INIT, EXPIRED)) {
+                        try {
+                            timeout.task.run();
+                        } catch (Throwable t) {
+                            System.err.println("[-] Timer: " + t);
+                        }
+                    }
+                }
+                timeout = next;
+            }
+        }
+    }
+}
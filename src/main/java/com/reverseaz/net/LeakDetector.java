@@ -0,0 +1,140 @@
+package com.reverseaz.net;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Détection des ressources empruntées jamais rendues (release() oublié)
+ *
+ * Une allocation sur samplingInterval est suivie par une PhantomReference qui
+ * garde la pile d'allocation. Si l'objet est collecté sans avoir été rendu,
+ * la référence arrive dans la file: la fuite est signalée avec l'endroit où
+ * la ressource a été empruntée. Les files sont vidées à chaque nouvel emprunt
+ * (pas de thread dédié). En mode paranoïaque, toutes les allocations sont
+ * suivies (tests, débogage): une capture de pile par emprunt.
+ *
+ * Config: -Dreverseaz.leak.sampling (128, 0 = désactivé),
+ * -Dreverseaz.leak.paranoid (false)
+ */
+public class LeakDetector {
+
+    // Frames de la pile d'allocation affichées dans un rapport
+    private static final int REPORTED_FRAMES = 8;
+
+    private final int samplingInterval;
+    private final boolean paranoid;
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+    // Garde les Tracker atteignables jusqu'à release() ou leur collecte
+    private final Set<Tracker> live = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder tracked = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+
+    public LeakDetector() {
+        this(Integer.getInteger("reverseaz.leak.sampling", 128), Boolean.getBoolean("reverseaz.leak.paranoid"));
+    }
+
+    public LeakDetector(int samplingInterval, boolean paranoid) {
+        this.samplingInterval = samplingInterval;
+        this.paranoid = paranoid;
+    }
+
+    /**
+     * Appelé à chaque emprunt: signale les fuites en attente, puis suit
+     * resource si elle est échantillonnée
+     *
+     * @return à fermer au release(), ou null si resource n'est pas suivie
+     */
+    public Tracker track(Object resource, String label) {
+        reportLeaks();
+        if (!paranoid && (samplingInterval <= 0 || ThreadLocalRandom.current().nextInt(samplingInterval) != 0))
+            return null;
+        Tracker tracker = new Tracker(resource, collected, label, new Throwable("Emprunté ici"));
+        live.add(tracker);
+        tracked.increment();
+        return tracker;
+    }
+
+    /**
+     * Signale les ressources suivies collectées sans release()
+     */
+    public void reportLeaks() {
+        Tracker tracker;
+        while ((tracker = (Tracker) collected.poll()) != null) {
+            if (live.remove(tracker)) {
+                leaks.increment();
+                onLeak(tracker.label, tracker.site);
+            }
+        }
+    }
+
+    public long getTracked() {
+        return tracked.sum();
+    }
+
+    public long getLeaks() {
+        return leaks.sum();
+    }
+
+    public boolean isParanoid() {
+        return paranoid;
+    }
+
+    @Override
+    public String toString() {
+        if (paranoid)
+            return String.format("fuites=%d (tout suivi)", getLeaks());
+        if (samplingInterval <= 0)
+            return "fuites: détection désactivée";
+        return String.format("fuites=%d (échantillon 1/%d, %d suivis)", getLeaks(), samplingInterval, getTracked());
+    }
+
+    /**
+     * Rapport d'une fuite (log par défaut)
+     */
+    protected void onLeak(String label, Throwable site) {
+        StringBuilder report = new StringBuilder("[-] Fuite: ").append(label)
+                .append(" collecté sans release(), emprunté ici:");
+        int shown = 0;
+        for (StackTraceElement frame : site.getStackTrace()) {
+            if (isInternal(frame))
+                continue;
+            report.append("\n        at ").append(frame);
+            if (++shown == REPORTED_FRAMES)
+                break;
+        }
+        System.err.println(report);
+    }
+
+    private static boolean isInternal(StackTraceElement frame) {
+        String className = frame.getClassName();
+        return className.equals(LeakDetector.class.getName()) || className.equals(BufferPool.class.getName())
+                || className.equals(PooledBuffer.class.getName());
+    }
+
+    /**
+     * Suivi d'une ressource: ne la garde pas atteignable (PhantomReference)
+     */
+    public final class Tracker extends PhantomReference<Object> {
+        private final String label;
+        private final Throwable site;
+
+        Tracker(Object resource, ReferenceQueue<Object> queue, String label, Throwable site) {
+            super(resource, queue);
+            this.label = label;
+            this.site = site;
+        }
+
+        /**
+         * Ressource rendue: plus de fuite possible
+         */
+        public void close() {
+            live.remove(this);
+            clear();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.reverseaz.net;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compteurs d'un listener (sessions, logins, trafic relayé)
+ *
+ * Incrémentés depuis les threads de session sans contention (LongAdder),
+ * lus par la commande console "listeners".
+ */
+public class ListenerMetrics {
+
+    private final LongAdder accepted = new LongAdder();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder framesRejected = new LongAdder();
+    private final LongAdder statusPings = new LongAdder();
+    private final LongAdder logins = new LongAdder();
+    private final LongAdder packetsC2S = new LongAdder();
+    private final LongAdder packetsS2C = new LongAdder();
+    private final LongAdder bytesC2S = new LongAdder();
+    private final LongAdder bytesS2C = new LongAdder();
+    // Jauges: octets en attente dans les files de sortie de toutes les sessions
+    private final LongAdder queuedC2S = new LongAdder();
+    private final LongAdder queuedS2C = new LongAdder();
+    private final LongAdder readPauses = new LongAdder();
+    // Boucles de relay en cours sur le RelayExecutor partagé
+    private final AtomicInteger relayLoops = new AtomicInteger();
+
+    public void sessionOpened() {
+        accepted.increment();
+        active.incrementAndGet();
+    }
+
+    public void sessionClosed() {
+        active.decrementAndGet();
+    }
+
+    public void sessionRejected() {
+        rejected.increment();
+    }
+
+    public void sessionTimedOut() {
+        timedOut.increment();
+    }
+
+    public void frameRejected() {
+        framesRejected.increment();
+    }
+
+    public void statusServed() {
+        statusPings.increment();
+    }
+
+    public void loginCompleted() {
+        logins.increment();
+    }
+
+    public void relayLoopStarted() {
+        relayLoops.incrementAndGet();
+    }
+
+    public void relayLoopStopped() {
+        relayLoops.decrementAndGet();
+    }
+
+    public void relayedC2S(int bytes) {
+        packetsC2S.increment();
+        bytesC2S.add(bytes);
+    }
+
+    public void relayedS2C(int bytes) {
+        packetsS2C.increment();
+        bytesS2C.add(bytes);
+    }
+
+    /**
+     * File de sortie d'une session, reliée aux jauges du listener
+     *
+     * @param toClient true pour la direction serveur -> client
+     */
+    public WriteQueue newWriteQueue(boolean toClient, int highWatermark, int lowWatermark) {
+        return newWriteQueue(toClient, highWatermark, lowWatermark, null);
+    }
+
+    /**
+     * @param arena frames stockées hors tas dans cette arène, ou null
+     */
+    public WriteQueue newWriteQueue(boolean toClient, int highWatermark, int lowWatermark, SessionArena arena) {
+        return new WriteQueue(highWatermark, lowWatermark, toClient ? queuedS2C : queuedC2S, readPauses,
+                arena != null ? arena.newRing() : null);
+    }
+
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    public int getActive() {
+        return active.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    public long getFramesRejected() {
+        return framesRejected.sum();
+    }
+
+    public long getStatusPings() {
+        return statusPings.sum();
+    }
+
+    public long getLogins() {
+        return logins.sum();
+    }
+
+    public long getPacketsC2S() {
+        return packetsC2S.sum();
+    }
+
+    public long getPacketsS2C() {
+        return packetsS2C.sum();
+    }
+
+    public long getBytesC2S() {
+        return bytesC2S.sum();
+    }
+
+    public long getBytesS2C() {
+        return bytesS2C.sum();
+    }
+
+    public long getQueuedC2S() {
+        return queuedC2S.sum();
+    }
+
+    public long getQueuedS2C() {
+        return queuedS2C.sum();
+    }
+
+    public long getReadPauses() {
+        return readPauses.sum();
+    }
+
+    public int getRelayLoops() {
+        return relayLoops.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "sessions=%d (actives=%d, refusées=%d, timeouts=%d, frames rejetées=%d) status=%d logins=%d | C2S %d pkt / %.1f KB | S2C %d pkt / %.1f KB"
+                        + " | en file C2S %.1f KB / S2C %.1f KB, pauses=%d | boucles relay=%d",
+                getAccepted(), getActive(), getRejected(), getTimedOut(), getFramesRejected(), getStatusPings(), getLogins(),
+                getPacketsC2S(), getBytesC2S() / 1024.0, getPacketsS2C(), getBytesS2C() / 1024.0,
+                getQueuedC2S() / 1024.0, getQueuedS2C() / 1024.0, getReadPauses(), getRelayLoops());
+    }
+}
@@ -0,0 +1,76 @@
+package com.reverseaz.net;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Tampon emprunté à une BufferPool, compté par références
+ *
+ * Créé avec un compteur à 1. Chaque détenteur supplémentaire (autre thread,
+ * file) appelle retain(); chacun appelle release() quand il a fini. Le
+ * tableau retourne à la réserve au dernier release(): plus aucun accès après.
+ * Un release() de trop ou un accès à un tampon rendu lève une
+ * IllegalStateException au lieu de corrompre le tampon d'une autre session.
+ */
+public final class PooledBuffer {
+
+    private static final AtomicIntegerFieldUpdater<PooledBuffer> REF_COUNT = AtomicIntegerFieldUpdater
+            .newUpdater(PooledBuffer.class, "refCount");
+
+    private final BufferPool pool;
+    private byte[] array;
+    private volatile int refCount = 1;
+    // Non null si le détecteur de fuites suit ce tampon
+    LeakDetector.Tracker tracker;
+
+    PooledBuffer(BufferPool pool, byte[] array) {
+        this.pool = pool;
+        this.array = array;
+    }
+
+    /**
+     * Le tableau sous-jacent, valable jusqu'au dernier release()
+     */
+    public byte[] array() {
+        if (refCount <= 0)
+            throw new IllegalStateException("Tampon déjà rendu à la réserve");
+        return array;
+    }
+
+    /**
+     * Un détenteur de plus
+     */
+    public PooledBuffer retain() {
+        int count;
+        do {
+            count = refCount;
+            if (count <= 0)
+                throw new IllegalStateException("retain() sur un tampon déjà rendu");
+        } while (!REF_COUNT.compareAndSet(this, count, count + 1));
+        return this;
+    }
+
+    /**
+     * Un détenteur de moins; au dernier, le tableau retourne à la réserve
+     *
+     * @return true si le tampon a été rendu
+     */
+    public boolean release() {
+        int count = REF_COUNT.decrementAndGet(this);
+        if (count > 0)
+            return false;
+        if (count < 0) {
+            REF_COUNT.incrementAndGet(this);
+            throw new IllegalStateException("release() de trop sur un tampon déjà rendu");
+        }
+        if (tracker != null)
+            tracker.close();
+        byte[] recycled = array;
+        array = null;
+        pool.recycle(recycled);
+        return true;
+    }
+
+    public int refCount() {
+        return refCount;
+    }
+}
@@ -0,0 +1,154 @@
+package com.reverseaz.net;
+
+import com.reverseaz.packet.VarInt;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Équivalent de BufferedInputStream dont le tampon vient d'une BufferPool
+ *
+ * read() emprunte un tampon et le remplit d'un seul appel au socket (pas de
+ * lecture d'un octet suivie d'available()); il est rendu dès qu'il est vidé,
+ * ou aussitôt si la lecture n'a rien rendu. Un lecteur bloqué sur un pair
+ * inactif tient donc un tampon pendant l'attente. Les lectures en bloc sur un
+ * tampon vide vont directement dans le tableau de l'appelant.
+ */
+public class PooledInputStream extends FilterInputStream {
+
+    private final BufferPool pool;
+    private PooledBuffer pooled;
+    private byte[] buffer; // pooled.array() tant que le tampon est tenu
+    // Lu sans verrou par le rapport mémoire (le lecteur garde le moniteur
+    // pendant qu'il attend des données)
+    private volatile int heldBytes;
+    private int position;
+    private int count;
+    private BusyPoll busyPoll;
+
+    public PooledInputStream(InputStream in, BufferPool pool) {
+        super(in);
+        this.pool = pool;
+    }
+
+    @Override
+    public synchronized int read() throws IOException {
+        if (position == count && !fill())
+            return -1;
+        int b = buffer[position++] & 0xFF;
+        if (position == count)
+            release();
+        return b;
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0)
+            return 0;
+        if (position < count) {
+            int n = Math.min(len, count - position);
+            System.arraycopy(buffer, position, b, off, n);
+            position += n;
+            if (position == count)
+                release();
+            return n;
+        }
+        // Rien en tampon: lecture directe dans le tableau de l'appelant
+        if (busyPoll != null)
+            busyPoll.awaitReadable(in);
+        return in.read(b, off, len);
+    }
+
+    /**
+     * Lit un VarInt, décodé d'un bloc dans le tampon quand il y est en entier
+     * (sinon octet par octet)
+     *
+     * @return -1 en fin de flux
+     */
+    public synchronized int readVarInt() throws IOException {
+        if (position < count) {
+            long decoded = VarInt.decode(buffer, position, count);
+            if (decoded == VarInt.MALFORMED)
+                throw new IOException("VarInt too big");
+            if (decoded != VarInt.INCOMPLETE) {
+                position += VarInt.decodedSize(decoded);
+                if (position == count)
+                    release();
+                return VarInt.decodedValue(decoded);
+            }
+        }
+        return VarInt.read(this);
+    }
+
+    @Override
+    public synchronized int available() throws IOException {
+        return (count - position) + in.available();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Attente active avant chaque lecture qui bloquerait (null = aucune); à
+     * fixer avant de démarrer le thread lecteur
+     */
+    public void setBusyPoll(BusyPoll busyPoll) {
+        this.busyPoll = busyPoll;
+    }
+
+    /**
+     * Emprunte un tampon et le remplit d'une lecture (bloquante)
+     *
+     * @return false en fin de flux (tampon déjà rendu)
+     */
+    private boolean fill() throws IOException {
+        if (busyPoll != null)
+            busyPoll.awaitReadable(in);
+        pooled = pool.acquire();
+        buffer = pooled.array();
+        heldBytes = buffer.length;
+        position = 0;
+        int read;
+        try {
+            read = in.read(buffer, 0, buffer.length);
+        } catch (IOException e) {
+            release();
+            throw e;
+        }
+        if (read <= 0) {
+            release();
+            return false;
+        }
+        count = read;
+        return true;
+    }
+
+    /**
+     * Rend le tampon à la réserve (les octets non lus sont perdus)
+     */
+    public synchronized void release() {
+        if (pooled != null) {
+            pooled.release();
+            pooled = null;
+            buffer = null;
+            heldBytes = 0;
+        }
+        position = count = 0;
+    }
+
+    /**
+     * Octets de tampon actuellement tenus
+     */
+    public int getHeldBytes() {
+        return heldBytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        release();
+        in.close();
+    }
+}
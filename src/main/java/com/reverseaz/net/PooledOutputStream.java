@@ -0,0 +1,182 @@
+package com.reverseaz.net;
+
+import com.reverseaz.packet.VarInt;
+
+import javax.crypto.Cipher;
+import javax.crypto.ShortBufferException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Équivalent de BufferedOutputStream dont le tampon vient d'une BufferPool
+ *
+ * Le tampon est emprunté à la première écriture et rendu au flush: entre deux
+ * lots, la session ne tient aucun tampon de sortie.
+ *
+ * Avec un Cipher (flux chiffré vers le serveur), le tampon sert de zone de
+ * préparation en clair: chiffré sur place en une passe juste avant l'écriture
+ * sur le socket, au lieu d'un cipher.update() et d'un tableau par write().
+ * Tout passe alors par le tampon, gros contenus compris (le tableau de
+ * l'appelant n'est jamais modifié).
+ */
+public class PooledOutputStream extends FilterOutputStream {
+
+    // Cipher recopie l'entrée (nouveau tableau) si elle chevauche la sortie:
+    // le clair passe par scratch, chiffré vers le tampon par tranches
+    private static final int CIPHER_SCRATCH_BYTES = 512;
+
+    private final BufferPool pool;
+    private final Cipher cipher; // null: écrit en clair
+    private final byte[] scratch;
+    private PooledBuffer pooled;
+    private byte[] buffer; // pooled.array() tant que le tampon est tenu
+    // Lu sans verrou par le rapport mémoire
+    private volatile int heldBytes;
+    private int count;
+
+    public PooledOutputStream(OutputStream out, BufferPool pool) {
+        this(out, pool, null);
+    }
+
+    /**
+     * @param cipher chiffrement en flux (AES/CFB8) appliqué sur place au
+     *               tampon avant chaque écriture sur out, ou null
+     */
+    public PooledOutputStream(OutputStream out, BufferPool pool, Cipher cipher) {
+        super(out);
+        this.pool = pool;
+        this.cipher = cipher;
+        this.scratch = cipher != null ? new byte[CIPHER_SCRATCH_BYTES] : null;
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        if (buffer == null)
+            acquire();
+        else if (count == buffer.length)
+            flushBuffer();
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        if (cipher != null) {
+            stage(b, off, len);
+            return;
+        }
+        if (len >= pool.getBufferSize()) {
+            // Plus grand que le tampon: écrit directement, sans copie
+            flushBuffer();
+            out.write(b, off, len);
+            return;
+        }
+        if (buffer == null)
+            acquire();
+        else if (len > buffer.length - count)
+            flushBuffer();
+        System.arraycopy(b, off, buffer, count, len);
+        count += len;
+    }
+
+    /**
+     * Écrit une frame en deux segments, taille (VarInt, si lengthPrefixed)
+     * puis contenu, avec un seul verrou: l'en-tête est encodé directement
+     * dans le tampon, pas octet par octet via write(int). Un contenu plus
+     * grand que le tampon n'y est pas recopié (voir write)
+     */
+    public synchronized void writeFrame(byte[] b, int off, int len, boolean lengthPrefixed) throws IOException {
+        if (lengthPrefixed) {
+            if (buffer == null)
+                acquire();
+            else if (buffer.length - count < VarInt.MAX_BYTES)
+                flushBuffer();
+            count = VarInt.write(buffer, count, len);
+        }
+        write(b, off, len);
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        try {
+            flushBuffer();
+            out.flush();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Rend le tampon à la réserve (les octets non écrits sont perdus)
+     */
+    public synchronized void release() {
+        if (pooled != null) {
+            pooled.release();
+            pooled = null;
+            buffer = null;
+            heldBytes = 0;
+        }
+        count = 0;
+    }
+
+    /**
+     * Octets de tampon actuellement tenus
+     */
+    public int getHeldBytes() {
+        return heldBytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void acquire() {
+        pooled = pool.acquire();
+        buffer = pooled.array();
+        heldBytes = buffer.length;
+    }
+
+    /**
+     * Copie dans le tampon (vidé chaque fois qu'il est plein), pour que le
+     * chiffrement se fasse sur place
+     */
+    private void stage(byte[] b, int off, int len) throws IOException {
+        if (buffer == null)
+            acquire();
+        while (len > 0) {
+            if (count == buffer.length)
+                flushBuffer();
+            int slice = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, slice);
+            count += slice;
+            off += slice;
+            len -= slice;
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            if (cipher != null)
+                encryptInPlace();
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    private void encryptInPlace() throws IOException {
+        try {
+            for (int done = 0; done < count; done += CIPHER_SCRATCH_BYTES) {
+                int slice = Math.min(CIPHER_SCRATCH_BYTES, count - done);
+                System.arraycopy(buffer, done, scratch, 0, slice);
+                cipher.update(scratch, 0, slice, buffer, done);
+            }
+        } catch (ShortBufferException e) {
+            throw new IOException("Chiffrement impossible", e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.reverseaz.net;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Threads des boucles de relay en Play (C2S, S2C, transformation du
+ * pipeline), partagés par toutes les sessions de tous les listeners
+ *
+ * Les lectures restent bloquantes: chaque boucle tient un thread pendant
+ * toute la session, mais les threads sont nommés, réutilisés d'une session
+ * à l'autre (60 s d'inactivité avant l'arrêt) et leur nombre est borné. Pas
+ * de file: une boucle qui n'obtient pas de thread est refusée tout de suite
+ * plutôt que d'attendre qu'une autre session se termine.
+ *
+ * Config: -Dreverseaz.relay.maxThreads (3 par session admise, soit
+ * 3 x reverseaz.sessions.max)
+ */
+public class RelayExecutor {
+
+    private final ThreadPoolExecutor threads;
+    private final LongAdder rejected = new LongAdder();
+
+    public RelayExecutor() {
+        this(Integer.getInteger("reverseaz.relay.maxThreads",
+                3 * Integer.getInteger("reverseaz.sessions.max", 256)));
+    }
+
+    public RelayExecutor(int maxThreads) {
+        AtomicInteger relayThreads = new AtomicInteger();
+        this.threads = new ThreadPoolExecutor(0, maxThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "Relay-" + relayThreads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Lance une boucle de relay, comptée dans les jauges du listener
+     *
+     * @throws RejectedExecutionException si tous les threads sont occupés
+     */
+    public Future<?> submit(Runnable loop, ListenerMetrics metrics) {
+        try {
+            return threads.submit(() -> {
+                metrics.relayLoopStarted();
+                try {
+                    loop.run();
+                } finally {
+                    metrics.relayLoopStopped();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    public int getPoolSize() {
+        return threads.getPoolSize();
+    }
+
+    public int getActiveCount() {
+        return threads.getActiveCount();
+    }
+
+    public int getLargestPoolSize() {
+        return threads.getLargestPoolSize();
+    }
+
+    public int getMaxThreads() {
+        return threads.getMaximumPoolSize();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("relay: threads=%d (actifs=%d, max=%d, pic=%d) refus=%d", getPoolSize(),
+                getActiveCount(), getMaxThreads(), getLargestPoolSize(), getRejected());
+    }
+}
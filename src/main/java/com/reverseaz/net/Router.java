@@ -0,0 +1,99 @@
+package com.reverseaz.net;
+
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Routage par hostname du handshake vers un ou plusieurs backends
+ *
+ * La table courante est un snapshot immuable dans un AtomicReference: les
+ * sessions la lisent sans verrou, un reload en construit une nouvelle et la
+ * publie d'un coup. Les BackendTarget (pool de sockets, cache de status,
+ * compteurs) sont conservés d'un reload à l'autre pour un même host:port.
+ */
+public class Router {
+
+    private final long statusTtlMillis;
+    private final AtomicReference<RoutingTable> table = new AtomicReference<>();
+    // Modifiée uniquement sous le verrou de update()
+    private Map<String, BackendTarget> backends = new HashMap<>();
+
+    public Router(long statusTtlMillis) {
+        this.statusTtlMillis = statusTtlMillis;
+    }
+
+    /**
+     * Backend pour le hostname demandé dans le handshake
+     */
+    public BackendTarget route(String requestedHost) {
+        return table.get().select(requestedHost);
+    }
+
+    public RoutingTable getTable() {
+        return table.get();
+    }
+
+    /**
+     * Construit et publie une nouvelle table; les backends qui n'y figurent
+     * plus sont fermés (les sessions en cours gardent leur socket)
+     *
+     * @param routes   hostname -> replicas (adresses non résolues)
+     * @param defaults replicas pour les hostnames sans route
+     */
+    public synchronized void update(Map<String, List<InetSocketAddress>> routes, List<InetSocketAddress> defaults,
+            RoutingTable.Balance balance) {
+        Map<String, BackendTarget> previous = backends;
+        Map<String, BackendTarget> current = new HashMap<>();
+
+        Map<String, RoutingTable.Route> built = new HashMap<>();
+        for (Map.Entry<String, List<InetSocketAddress>> entry : routes.entrySet()) {
+            built.put(RoutingTable.normalize(entry.getKey()),
+                    new RoutingTable.Route(targets(entry.getValue(), previous, current), balance));
+        }
+        RoutingTable.Route defaultRoute = new RoutingTable.Route(targets(defaults, previous, current), balance);
+
+        backends = current;
+        table.set(new RoutingTable(built, defaultRoute));
+
+        for (Map.Entry<String, BackendTarget> entry : previous.entrySet()) {
+            if (!current.containsKey(entry.getKey()))
+                entry.getValue().close();
+        }
+    }
+
+    /**
+     * Ferme tous les backends
+     */
+    public synchronized void close() {
+        for (BackendTarget backend : backends.values()) {
+            backend.close();
+        }
+    }
+
+    private List<BackendTarget> targets(List<InetSocketAddress> addresses, Map<String, BackendTarget> previous,
+            Map<String, BackendTarget> current) {
+        List<BackendTarget> targets = new ArrayList<>(addresses.size());
+        for (InetSocketAddress address : addresses) {
+            String key = address.getHostString() + ":" + address.getPort();
+            BackendTarget target = current.get(key);
+            if (target == null) {
+                target = previous.get(key);
+                if (target == null)
+                    target = new BackendTarget(address.getHostString(), address.getPort(), statusTtlMillis);
+                current.put(key, target);
+            }
+            targets.add(target);
+        }
+        return targets;
+    }
+
+    @Override
+    public String toString() {
+        RoutingTable snapshot = table.get();
+        if (snapshot == null)
+            return "-";
+        int routes = snapshot.getRoutes().size();
+        return snapshot.getDefaultRoute() + (routes > 0 ? " (+" + routes + " routes)" : "");
+    }
+}
@@ -0,0 +1,133 @@
+package com.reverseaz.net;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Table de routage immuable: hostname du handshake -> replicas
+ *
+ * Jamais modifiée après construction: le Router en publie une nouvelle à
+ * chaque reload, les sessions lisent la table courante sans verrou.
+ */
+public class RoutingTable {
+
+    /**
+     * Choix du replica quand une route en a plusieurs
+     */
+    public enum Balance {
+        /** Replica avec le moins de sessions en cours */
+        LEAST_SESSIONS,
+        /** Replica avec le temps de connexion moyen le plus bas */
+        LATENCY;
+
+        public static Balance parse(String value) {
+            if (value == null || value.trim().isEmpty())
+                return LEAST_SESSIONS;
+            switch (value.trim().toLowerCase(Locale.ROOT)) {
+                case "least-sessions":
+                    return LEAST_SESSIONS;
+                case "latency":
+                    return LATENCY;
+                default:
+                    throw new IllegalArgumentException("Balance inconnue: " + value + " (least-sessions | latency)");
+            }
+        }
+    }
+
+    private final Map<String, Route> routes;
+    private final Route defaultRoute;
+
+    RoutingTable(Map<String, Route> routes, Route defaultRoute) {
+        this.routes = Collections.unmodifiableMap(new HashMap<>(routes));
+        this.defaultRoute = defaultRoute;
+    }
+
+    /**
+     * Backend pour le hostname demandé par le client (route par défaut si inconnu)
+     */
+    public BackendTarget select(String requestedHost) {
+        Route route = routes.get(normalize(requestedHost));
+        return (route != null ? route : defaultRoute).select();
+    }
+
+    public Route getDefaultRoute() {
+        return defaultRoute;
+    }
+
+    public Map<String, Route> getRoutes() {
+        return routes;
+    }
+
+    /**
+     * Hostname comparable: minuscules, sans point final ni marqueur Forge ("\0FML\0")
+     */
+    public static String normalize(String host) {
+        if (host == null)
+            return "";
+        int nul = host.indexOf('\0');
+        if (nul >= 0)
+            host = host.substring(0, nul);
+        if (host.endsWith("."))
+            host = host.substring(0, host.length() - 1);
+        return host.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Un ou plusieurs replicas équivalents
+     */
+    public static class Route {
+        private final BackendTarget[] replicas;
+        private final Balance balance;
+
+        Route(List<BackendTarget> replicas, Balance balance) {
+            if (replicas.isEmpty())
+                throw new IllegalArgumentException("Route sans backend");
+            this.replicas = replicas.toArray(new BackendTarget[0]);
+            this.balance = balance;
+        }
+
+        BackendTarget select() {
+            if (replicas.length == 1)
+                return replicas[0];
+
+            // Départ aléatoire: les égalités ne favorisent pas toujours le premier
+            int start = ThreadLocalRandom.current().nextInt(replicas.length);
+            BackendTarget best = null;
+            for (int i = 0; i < replicas.length; i++) {
+                BackendTarget candidate = replicas[(start + i) % replicas.length];
+                if (best == null || better(candidate, best))
+                    best = candidate;
+            }
+            return best;
+        }
+
+        private boolean better(BackendTarget a, BackendTarget b) {
+            if (balance == Balance.LATENCY) {
+                double la = a.getConnectLatencyMillis();
+                double lb = b.getConnectLatencyMillis();
+                if (la != lb)
+                    return la < lb;
+            }
+            return a.getActiveSessions() < b.getActiveSessions();
+        }
+
+        public List<BackendTarget> getReplicas() {
+            return Collections.unmodifiableList(Arrays.asList(replicas));
+        }
+
+        public Balance getBalance() {
+            return balance;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (BackendTarget replica : replicas) {
+                if (sb.length() > 0)
+                    sb.append(',');
+                sb.append(replica);
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.reverseaz.net;
+
+import com.reverseaz.packet.VarInt;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mémoire hors tas d'une session: les frames en file y sont stockées
+ *
+ * Les files de sortie d'une session en mode arène copient chaque frame dans
+ * un anneau d'octets (Ring) fait de slabs directs (ByteBuffer.allocateDirect):
+ * aucun objet Java par paquet, le travail du GC ne dépend plus du trafic. Un
+ * anneau vide garde un slab (le suivant repart de zéro sans allocation), les
+ * autres retournent à une réserve globale bornée, partagée entre sessions.
+ * À la fermeture, les anneaux rendent tout d'un coup.
+ *
+ * Lecture, décompression et compression se font dans des tableaux de travail
+ * réutilisés (jusqu'à scratchBytes par direction): Inflater/Deflater et les
+ * flux socket n'acceptent que des byte[] en Java 8.
+ *
+ * Config: -Dreverseaz.arena (false), -Dreverseaz.arena.slabBytes (16 Ko),
+ * -Dreverseaz.arena.pooledSlabs (1024), -Dreverseaz.arena.scratchBytes (32 Ko)
+ */
+public class SessionArena {
+
+    public static final boolean ENABLED = Boolean.getBoolean("reverseaz.arena");
+    public static final int SCRATCH_BYTES = Integer.getInteger("reverseaz.arena.scratchBytes", 32768);
+    private static final int SLAB_BYTES = Integer.getInteger("reverseaz.arena.slabBytes", 16384);
+    private static final int POOLED_SLABS = Integer.getInteger("reverseaz.arena.pooledSlabs", 1024);
+
+    // Réserve globale de slabs libres
+    private static final ConcurrentLinkedQueue<ByteBuffer> FREE = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger FREE_COUNT = new AtomicInteger();
+    private static final AtomicInteger HELD_TOTAL = new AtomicInteger();
+    private static final LongAdder CREATED = new LongAdder();
+
+    private final BufferPool transfers;
+    private final AtomicInteger heldSlabs = new AtomicInteger();
+
+    /**
+     * @param transfers tampons de transfert vers le socket (l'écriture sur un
+     *                  OutputStream passe par un tableau)
+     */
+    public SessionArena(BufferPool transfers) {
+        this.transfers = transfers;
+    }
+
+    /**
+     * Nouvel anneau d'octets (une file de sortie)
+     */
+    public Ring newRing() {
+        return new Ring();
+    }
+
+    /**
+     * Octets hors tas tenus par la session (slabs entiers)
+     */
+    public long getReservedBytes() {
+        return (long) heldSlabs.get() * SLAB_BYTES;
+    }
+
+    /**
+     * État global: slabs tenus par les sessions, en réserve, créés
+     */
+    public static String stats() {
+        if (!ENABLED)
+            return "arène hors tas: désactivée";
+        return String.format("arène hors tas: slabs %d Ko tenus=%d (%.1f Mo), en réserve=%d/%d, créés=%d",
+                SLAB_BYTES / 1024, HELD_TOTAL.get(), HELD_TOTAL.get() * (double) SLAB_BYTES / (1024 * 1024),
+                FREE_COUNT.get(), POOLED_SLABS, CREATED.sum());
+    }
+
+    private ByteBuffer takeSlab() {
+        heldSlabs.incrementAndGet();
+        HELD_TOTAL.incrementAndGet();
+        ByteBuffer slab = FREE.poll();
+        if (slab != null) {
+            FREE_COUNT.decrementAndGet();
+            return slab;
+        }
+        CREATED.increment();
+        return ByteBuffer.allocateDirect(SLAB_BYTES);
+    }
+
+    private void giveSlab(ByteBuffer slab) {
+        heldSlabs.decrementAndGet();
+        HELD_TOTAL.decrementAndGet();
+        if (FREE_COUNT.incrementAndGet() > POOLED_SLABS) {
+            // Laissé au GC (mémoire directe libérée avec le ByteBuffer)
+            FREE_COUNT.decrementAndGet();
+            return;
+        }
+        slab.clear();
+        FREE.offer(slab);
+    }
+
+    /**
+     * File d'octets FIFO sur des slabs hors tas, non thread-safe: protégée
+     * par le verrou de la WriteQueue qui la possède
+     */
+    public final class Ring {
+
+        private final ArrayDeque<ByteBuffer> slabs = new ArrayDeque<>();
+        private int readIndex; // dans le premier slab
+        private int writeIndex; // dans le dernier slab
+        private long size;
+        private final byte[] varInt = new byte[VarInt.MAX_BYTES];
+
+        private Ring() {
+        }
+
+        public void write(byte[] src, int offset, int length) {
+            while (length > 0) {
+                ByteBuffer tail = writableTail();
+                int count = Math.min(length, SLAB_BYTES - writeIndex);
+                tail.position(writeIndex);
+                tail.put(src, offset, count);
+                writeIndex += count;
+                offset += count;
+                length -= count;
+                size += count;
+            }
+        }
+
+        public void writeVarInt(int value) {
+            write(varInt, 0, VarInt.write(varInt, 0, value));
+        }
+
+        /**
+         * Retire jusqu'à length octets dans dst
+         *
+         * @return octets copiés (0 si vide)
+         */
+        public int read(byte[] dst, int offset, int length) {
+            int total = 0;
+            while (length > 0 && size > 0) {
+                ByteBuffer head = slabs.peekFirst();
+                int end = slabs.size() == 1 ? writeIndex : SLAB_BYTES;
+                int count = Math.min(length, end - readIndex);
+                head.position(readIndex);
+                head.get(dst, offset, count);
+                readIndex += count;
+                offset += count;
+                length -= count;
+                size -= count;
+                total += count;
+                if (size == 0) {
+                    // Vide: on garde un slab, réécrit depuis le début
+                    while (slabs.size() > 1)
+                        giveSlab(slabs.pollLast());
+                    readIndex = writeIndex = 0;
+                } else if (readIndex == SLAB_BYTES) {
+                    giveSlab(slabs.pollFirst());
+                    readIndex = 0;
+                }
+            }
+            return total;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * Tampon de transfert pour vider l'anneau vers un OutputStream
+         */
+        public PooledBuffer borrowTransfer() {
+            return transfers.acquire();
+        }
+
+        /**
+         * Rend tous les slabs (fermeture de la file)
+         */
+        public void clear() {
+            ByteBuffer slab;
+            while ((slab = slabs.pollFirst()) != null)
+                giveSlab(slab);
+            readIndex = writeIndex = 0;
+            size = 0;
+        }
+
+        private ByteBuffer writableTail() {
+            if (slabs.isEmpty() || writeIndex == SLAB_BYTES) {
+                slabs.addLast(takeSlab());
+                writeIndex = 0;
+            }
+            return slabs.peekLast();
+        }
+    }
+}
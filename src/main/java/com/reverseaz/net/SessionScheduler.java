@@ -0,0 +1,250 @@
+package com.reverseaz.net;
+
+import com.reverseaz.packet.PacketBuffer;
+import com.reverseaz.packet.VarInt;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ordonnanceur des sessions avec contrôle d'admission
+ *
+ * - Nombre max de sessions simultanées (un thread chacune)
+ * - File d'attente bornée au-delà; une session restée trop longtemps en file
+ *   est refusée plutôt que démarrée pour un client parti
+ * - Limite de connexions par IP (token bucket)
+ * - Refus propre: Login Disconnect avec un message, pas un socket coupé
+ *
+ * Une rafale de connexions est absorbée ici: les sessions établies gardent
+ * leurs threads de relay et ne voient pas la surcharge.
+ *
+ * Config: -Dreverseaz.sessions.max (256), .queue (64), .queueTimeoutMs (5000),
+ * .perIpRate (5/s, 0 = pas de limite), .perIpBurst (20)
+ */
+public class SessionScheduler {
+
+    private static final int PROTOCOL_LOGIN = 2;
+    private static final int PACKET_LOGIN_DISCONNECT = 0x00;
+    private static final int MAX_HANDSHAKE_LENGTH = 1024;
+    private static final int REJECT_READ_TIMEOUT_MS = 2000;
+    // Au-delà, les buckets d'IP pleins (inactives) sont purgés
+    private static final int MAX_TRACKED_IPS = 10000;
+
+    private static final String MSG_SATURATED = "Proxy saturé, réessaie dans quelques secondes";
+    private static final String MSG_RATE_LIMITED = "Trop de connexions, ralentis";
+
+    private final ThreadPoolExecutor sessions;
+    private final ThreadPoolExecutor rejector;
+    private final long queueTimeoutMillis;
+    private final double perIpRate;
+    private final double perIpBurst;
+    private final ConcurrentHashMap<InetAddress, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private final LongAdder rejectedSaturated = new LongAdder();
+    private final LongAdder rejectedRateLimited = new LongAdder();
+    private final LongAdder rejectedQueueTimeout = new LongAdder();
+
+    public SessionScheduler() {
+        this(Integer.getInteger("reverseaz.sessions.max", 256),
+                Integer.getInteger("reverseaz.sessions.queue", 64),
+                Long.getLong("reverseaz.sessions.queueTimeoutMs", 5000),
+                Double.parseDouble(System.getProperty("reverseaz.sessions.perIpRate", "5")),
+                Double.parseDouble(System.getProperty("reverseaz.sessions.perIpBurst", "20")));
+    }
+
+    public SessionScheduler(int maxSessions, int queueSize, long queueTimeoutMillis, double perIpRate,
+            double perIpBurst) {
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.perIpRate = perIpRate;
+        this.perIpBurst = Math.max(1, perIpBurst);
+
+        AtomicInteger sessionThreads = new AtomicInteger();
+        this.sessions = new ThreadPoolExecutor(maxSessions, maxSessions, 60, TimeUnit.SECONDS,
+                queueSize > 0 ? new ArrayBlockingQueue<>(queueSize) : new SynchronousQueue<>(),
+                runnable -> new Thread(runnable, "Session-" + sessionThreads.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+        sessions.allowCoreThreadTimeOut(true);
+
+        // Refus traités à part (lecture du handshake bornée par un timeout); si
+        // même cette file déborde, le socket est simplement fermé
+        this.rejector = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(256),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "Session-Reject");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+        rejector.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Admet la session ou la refuse proprement
+     *
+     * @return true si la session a été démarrée ou mise en file
+     */
+    public boolean submit(Socket client, Runnable session, ListenerMetrics metrics) {
+        if (!acquireToken(client.getInetAddress())) {
+            rejectedRateLimited.increment();
+            reject(client, MSG_RATE_LIMITED, metrics);
+            return false;
+        }
+
+        long queuedAt = System.nanoTime();
+        try {
+            sessions.execute(() -> {
+                if (System.nanoTime() - queuedAt > TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis)) {
+                    rejectedQueueTimeout.increment();
+                    reject(client, MSG_SATURATED, metrics);
+                    return;
+                }
+                session.run();
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejectedSaturated.increment();
+            reject(client, MSG_SATURATED, metrics);
+            return false;
+        }
+    }
+
+    public void shutdownNow() {
+        sessions.shutdownNow();
+        rejector.shutdownNow();
+    }
+
+    public int getActiveSessions() {
+        return sessions.getActiveCount();
+    }
+
+    public int getQueueDepth() {
+        return sessions.getQueue().size();
+    }
+
+    public long getRejectedSaturated() {
+        return rejectedSaturated.sum();
+    }
+
+    public long getRejectedRateLimited() {
+        return rejectedRateLimited.sum();
+    }
+
+    public long getRejectedQueueTimeout() {
+        return rejectedQueueTimeout.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("actives=%d/%d file=%d | refus: saturé=%d limite IP=%d attente=%d",
+                getActiveSessions(), sessions.getMaximumPoolSize(), getQueueDepth(),
+                getRejectedSaturated(), getRejectedRateLimited(), getRejectedQueueTimeout());
+    }
+
+    private boolean acquireToken(InetAddress address) {
+        if (perIpRate <= 0 || address == null)
+            return true;
+        if (buckets.size() > MAX_TRACKED_IPS)
+            purgeIdleBuckets();
+        return buckets.computeIfAbsent(address, a -> new TokenBucket(perIpBurst)).tryAcquire(perIpRate, perIpBurst);
+    }
+
+    private void purgeIdleBuckets() {
+        long now = System.nanoTime();
+        for (Iterator<TokenBucket> it = buckets.values().iterator(); it.hasNext();) {
+            if (it.next().isFull(now, perIpRate, perIpBurst))
+                it.remove();
+        }
+    }
+
+    private void reject(Socket client, String message, ListenerMetrics metrics) {
+        metrics.sessionRejected();
+        try {
+            rejector.execute(() -> sendDisconnect(client, message));
+        } catch (RejectedExecutionException e) {
+            closeQuietly(client);
+        }
+    }
+
+    /**
+     * Lit le handshake; si le client vient se connecter (state 2), répond par un
+     * Login Disconnect. Un ping de status est simplement fermé.
+     */
+    private static void sendDisconnect(Socket client, String message) {
+        try {
+            client.setSoTimeout(REJECT_READ_TIMEOUT_MS);
+            InputStream in = new BufferedInputStream(client.getInputStream(), 512);
+            int length = VarInt.read(in);
+            if (length <= 0 || length > MAX_HANDSHAKE_LENGTH)
+                return;
+            byte[] data = new byte[length];
+            new DataInputStream(in).readFully(data);
+
+            PacketBuffer handshake = PacketBuffer.wrap(data, length);
+            if (handshake.readVarInt() != 0x00)
+                return;
+            handshake.readVarInt(); // version
+            handshake.skip(handshake.readVarInt()); // adresse
+            handshake.readShort(); // port
+            if (handshake.readVarInt() != PROTOCOL_LOGIN)
+                return;
+
+            byte[] json = ("{\"text\":\"" + message + "\"}").getBytes(StandardCharsets.UTF_8);
+            PacketBuffer packet = new PacketBuffer(json.length + 5);
+            packet.writeVarInt(PACKET_LOGIN_DISCONNECT);
+            packet.writeVarInt(json.length);
+            packet.writeBytes(json, 0, json.length);
+
+            PacketBuffer frame = new PacketBuffer(packet.getWriterIndex() + 5);
+            frame.writeVarInt(packet.getWriterIndex());
+            frame.writeBytes(packet.getData(), 0, packet.getWriterIndex());
+            OutputStream out = client.getOutputStream();
+            out.write(frame.getData(), 0, frame.getWriterIndex());
+            out.flush();
+        } catch (IOException | RuntimeException ignored) {
+            // Client déjà parti ou handshake invalide: rien à faire
+        } finally {
+            closeQuietly(client);
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Token bucket d'une IP: burst jetons, rechargé à rate jetons/seconde
+     */
+    private static class TokenBucket {
+        private double tokens;
+        private long updatedAt = System.nanoTime();
+
+        TokenBucket(double burst) {
+            this.tokens = burst;
+        }
+
+        synchronized boolean tryAcquire(double rate, double burst) {
+            refill(System.nanoTime(), rate, burst);
+            if (tokens < 1)
+                return false;
+            tokens -= 1;
+            return true;
+        }
+
+        synchronized boolean isFull(long now, double rate, double burst) {
+            refill(now, rate, burst);
+            return tokens >= burst;
+        }
+
+        private void refill(long now, double rate, double burst) {
+            tokens = Math.min(burst, tokens + (now - updatedAt) / 1e9 * rate);
+            updatedAt = now;
+        }
+    }
+}
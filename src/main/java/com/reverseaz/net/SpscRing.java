@@ -0,0 +1,161 @@
+package com.reverseaz.net;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Anneau de frames à un producteur et un consommateur, sans verrou
+ *
+ * Tableau préalloué, deux compteurs (écriture/lecture) chacun écrit par un
+ * seul thread, avec à côté le total d'octets de ce côté (publié par
+ * l'écriture du compteur): put() et take() ne font qu'une écriture volatile
+ * et aucune opération atomique. Borné en
+ * nombre de frames et en octets. Un côté qui doit attendre tourne quelques
+ * fois (yield) puis se gare; l'autre côté le réveille après sa publication.
+ */
+public class SpscRing {
+
+    private static final int SPINS = 64;
+
+    private final byte[][] slots;
+    private final int mask;
+    private final long maxBytes;
+
+    private final Sequence tail = new Sequence(); // prochaine écriture, octets produits
+    private final Sequence head = new Sequence(); // prochaine lecture, octets consommés
+
+    private volatile Thread waitingProducer;
+    private volatile Thread waitingConsumer;
+    private volatile boolean closed;
+
+    /**
+     * @param capacity arrondi à la puissance de 2 supérieure
+     * @param maxBytes au-delà, put() attend (une frame passe toujours si
+     *                 l'anneau est vide)
+     */
+    public SpscRing(int capacity, long maxBytes) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new byte[size][];
+        this.mask = size - 1;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Publie une frame (producteur uniquement)
+     *
+     * @throws IOException si l'anneau est fermé
+     */
+    public void put(byte[] frame) throws IOException {
+        long t = tail.get();
+        int spins = 0;
+        while (isFull(t)) {
+            if (closed)
+                throw new IOException("Anneau fermé");
+            if (++spins < SPINS) {
+                Thread.yield();
+                continue;
+            }
+            waitingProducer = Thread.currentThread();
+            if (isFull(t) && !closed)
+                LockSupport.park(this);
+            waitingProducer = null;
+            if (Thread.interrupted())
+                throw new InterruptedIOException("Interrompu en attente de place dans l'anneau");
+        }
+        if (closed)
+            throw new IOException("Anneau fermé");
+
+        slots[(int) (t & mask)] = frame;
+        tail.bytes += frame.length;
+        tail.set(t + 1);
+        Thread consumer = waitingConsumer;
+        if (consumer != null)
+            LockSupport.unpark(consumer);
+    }
+
+    /**
+     * Retire la frame suivante (consommateur uniquement), en attendant si besoin
+     *
+     * @return null si l'anneau est fermé et vide
+     */
+    public byte[] take() throws InterruptedIOException {
+        long h = head.get();
+        int spins = 0;
+        while (h == tail.get()) {
+            if (closed && h == tail.get())
+                return null;
+            if (++spins < SPINS) {
+                Thread.yield();
+                continue;
+            }
+            waitingConsumer = Thread.currentThread();
+            if (h == tail.get() && !closed)
+                LockSupport.park(this);
+            waitingConsumer = null;
+            if (Thread.interrupted())
+                throw new InterruptedIOException("Interrompu en attente de frames");
+        }
+
+        int index = (int) (h & mask);
+        byte[] frame = slots[index];
+        slots[index] = null;
+        head.bytes += frame.length;
+        head.set(h + 1);
+        Thread producer = waitingProducer;
+        if (producer != null)
+            LockSupport.unpark(producer);
+        return frame;
+    }
+
+    /**
+     * Plus de put(); le consommateur vide ce qui reste puis reçoit null
+     */
+    public void close() {
+        closed = true;
+        Thread thread;
+        if ((thread = waitingConsumer) != null)
+            LockSupport.unpark(thread);
+        if ((thread = waitingProducer) != null)
+            LockSupport.unpark(thread);
+    }
+
+    /**
+     * Octets en attente, approximatif hors producteur (rapport mémoire)
+     */
+    public long getQueuedBytes() {
+        head.get();
+        long consumed = head.bytes;
+        tail.get();
+        return Math.max(0, tail.bytes - consumed);
+    }
+
+    /**
+     * Producteur uniquement
+     */
+    private boolean isFull(long t) {
+        long used = t - head.get();
+        return used >= slots.length || (used > 0 && tail.bytes - head.bytes >= maxBytes);
+    }
+
+    /**
+     * Compteur et total d'octets d'un côté, isolés sur leur ligne de cache
+     * (évite le faux partage entre producteur et consommateur). Un seul
+     * thread écrit; bytes est publié par le set() qui suit
+     */
+    @SuppressWarnings("unused")
+    private static final class Sequence {
+        long q1, q2, q3, q4, q5, q6, q7;
+        private volatile long value;
+        long bytes;
+        long p1, p2, p3, p4, p5, p6;
+
+        long get() {
+            return value;
+        }
+
+        void set(long value) {
+            this.value = value;
+        }
+    }
+}
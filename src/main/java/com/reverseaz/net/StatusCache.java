@@ -0,0 +1,184 @@
+package com.reverseaz.net;
+
+import com.reverseaz.packet.PacketBuffer;
+import com.reverseaz.packet.VarInt;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache de la réponse Status (JSON de la liste des serveurs) d'un backend
+ *
+ * Les pings du launcher sont servis depuis le cache: aucune connexion au
+ * backend ni thread supplémentaire par ping. Un poller unique déclenche le
+ * rafraîchissement des caches utilisés récemment à chaque TTL; à froid, les
+ * requêtes simultanées partagent un seul fetch (coalescing).
+ *
+ * Les fetchs (connexion + lecture, jusqu'à 2x5s) tournent sur un petit pool
+ * borné (-Dreverseaz.status.fetchThreads, défaut 4), pas sur le thread du
+ * poller: un backend injoignable n'occupe qu'un thread (un seul fetch en
+ * cours par cache) et ne retarde pas les autres backends.
+ */
+public class StatusCache {
+
+    private static final int PROTOCOL_VERSION = 110;
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+    // Un cache non consulté depuis ce délai n'est plus rafraîchi par le poller
+    private static final long IDLE_MS = 60000;
+    // Au-delà, une réponse périmée n'est plus servie même en attendant le refresh
+    private static final long MAX_STALE_MS = 60000;
+
+    private static final int FETCH_THREADS = Integer.getInteger("reverseaz.status.fetchThreads", 4);
+
+    // Minuterie seulement: ne fait que soumettre les fetchs à FETCHERS
+    private static final ScheduledExecutorService POLLER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Status-Poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final AtomicInteger FETCHER_THREADS = new AtomicInteger();
+    private static final ThreadPoolExecutor FETCHERS = new ThreadPoolExecutor(FETCH_THREADS, FETCH_THREADS,
+            30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "Status-Fetch-" + FETCHER_THREADS.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    static {
+        FETCHERS.allowCoreThreadTimeOut(true);
+    }
+
+    private final BackendTarget target;
+    private final long ttlMillis;
+    private final AtomicInteger failures = new AtomicInteger();
+    private final ScheduledFuture<?> task;
+
+    private volatile String json;
+    private volatile long fetchedAt;
+    private volatile long lastAccess;
+    private CompletableFuture<String> inFlight;
+
+    public StatusCache(BackendTarget target, long ttlMillis) {
+        this.target = target;
+        this.ttlMillis = ttlMillis;
+        this.task = POLLER.scheduleWithFixedDelay(this::poll, ttlMillis, ttlMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Retourne le JSON de status: frais si possible, périmé (< 60s) pendant un
+     * refresh, sinon attend le fetch en cours
+     *
+     * @return le JSON, ou null si le backend ne répond pas
+     */
+    public String get(long timeoutMillis) {
+        lastAccess = System.currentTimeMillis();
+        String current = json;
+        long age = System.currentTimeMillis() - fetchedAt;
+        if (current != null && age < ttlMillis)
+            return current;
+
+        CompletableFuture<String> refresh = refresh();
+        if (current != null && age < MAX_STALE_MS)
+            return current;
+
+        try {
+            return refresh.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Lance un fetch, ou rejoint celui déjà en cours
+     */
+    private synchronized CompletableFuture<String> refresh() {
+        if (inFlight != null)
+            return inFlight;
+
+        CompletableFuture<String> future = new CompletableFuture<>();
+        inFlight = future;
+        FETCHERS.execute(() -> {
+            try {
+                String fetched = fetch();
+                json = fetched;
+                fetchedAt = System.currentTimeMillis();
+                failures.set(0);
+                future.complete(fetched);
+            } catch (IOException e) {
+                if (failures.incrementAndGet() == 1)
+                    System.out.println("[Status] Backend " + target + " injoignable: " + e.getMessage());
+                future.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    inFlight = null;
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Arrête le rafraîchissement périodique
+     */
+    public void close() {
+        task.cancel(false);
+    }
+
+    private void poll() {
+        if (System.currentTimeMillis() - lastAccess < IDLE_MS)
+            refresh();
+    }
+
+    /**
+     * Handshake (state 1) + Status Request, lit la Status Response
+     */
+    private String fetch() throws IOException {
+        // Adresse résolue en cache par le BackendTarget (pas de DNS par poll)
+        try (Socket socket = target.connect(CONNECT_TIMEOUT_MS)) {
+            socket.setSoTimeout(CONNECT_TIMEOUT_MS);
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 512);
+            InputStream in = new BufferedInputStream(socket.getInputStream(), 8192);
+
+            PacketBuffer handshake = new PacketBuffer(64);
+            handshake.writeVarInt(0x00);
+            handshake.writeVarInt(PROTOCOL_VERSION);
+            byte[] hostBytes = target.getHost().getBytes(StandardCharsets.UTF_8);
+            handshake.writeVarInt(hostBytes.length);
+            handshake.writeBytes(hostBytes, 0, hostBytes.length);
+            handshake.writeShort((short) target.getPort());
+            handshake.writeVarInt(1);
+            writeFrame(out, handshake);
+
+            PacketBuffer request = new PacketBuffer(1);
+            request.writeVarInt(0x00);
+            writeFrame(out, request);
+            out.flush();
+
+            int length = VarInt.read(in);
+            if (length <= 0)
+                throw new EOFException("Status Response vide");
+            byte[] data = new byte[length];
+            new DataInputStream(in).readFully(data);
+
+            PacketBuffer response = PacketBuffer.wrap(data, length);
+            if (response.readVarInt() != 0x00)
+                throw new IOException("Status Response attendue");
+            int jsonLength = response.readVarInt();
+            return new String(response.readBytes(jsonLength), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void writeFrame(OutputStream out, PacketBuffer content) throws IOException {
+        PacketBuffer frame = new PacketBuffer(content.getWriterIndex() + 5);
+        frame.writeVarInt(content.getWriterIndex());
+        frame.writeBytes(content.getData(), 0, content.getWriterIndex());
+        out.write(frame.getData(), 0, frame.getWriterIndex());
+    }
+}
@@ -0,0 +1,312 @@
+package com.reverseaz.net;
+
+import com.reverseaz.packet.VarInt;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * File de sortie d'une direction (lecteur -> écrivain) bornée en octets
+ *
+ * Le thread de lecture ajoute des frames, un thread d'écriture les vide vers
+ * le socket (un seul flush par lot). Au-dessus du seuil haut, offer() bloque:
+ * le lecteur arrête de lire le socket d'en face, TCP propage la pression
+ * jusqu'à l'émetteur. La lecture reprend sous le seuil bas.
+ *
+ * Mémoire par direction bornée à highWatermark + une frame.
+ *
+ * Avec un anneau d'arène (SessionArena.Ring), les frames sont copiées hors
+ * tas à l'ajout (l'appelant peut réutiliser son tableau) et l'écrivain vide
+ * l'anneau par tampons de transfert.
+ */
+public class WriteQueue implements FrameSink {
+
+    private final int highWatermark;
+    private final int lowWatermark;
+    private final LongAdder depthGauge;
+    private final LongAdder pauseCounter;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition belowLow = lock.newCondition();
+    private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+    private final SessionArena.Ring ring; // null: frames gardées sur le tas
+
+    // Octets en file + en cours d'écriture (libérés après le flush)
+    private long bytes;
+    private boolean paused;
+    private boolean closed;
+
+    /**
+     * @param depthGauge   jauge partagée (octets en file), ou null
+     * @param pauseCounter nombre de pauses de lecture, ou null
+     */
+    public WriteQueue(int highWatermark, int lowWatermark, LongAdder depthGauge, LongAdder pauseCounter) {
+        this(highWatermark, lowWatermark, depthGauge, pauseCounter, null);
+    }
+
+    /**
+     * @param ring anneau hors tas qui reçoit les frames, ou null
+     */
+    public WriteQueue(int highWatermark, int lowWatermark, LongAdder depthGauge, LongAdder pauseCounter,
+            SessionArena.Ring ring) {
+        this.ring = ring;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = Math.min(lowWatermark, highWatermark);
+        this.depthGauge = depthGauge;
+        this.pauseCounter = pauseCounter;
+    }
+
+    /**
+     * Ajoute une frame, en attendant le seuil bas si la file est pleine
+     *
+     * @param lengthPrefixed préfixer data par sa taille (VarInt) à l'écriture
+     * @throws IOException si la file est fermée
+     */
+    public void offer(byte[] data, int length, boolean lengthPrefixed) throws IOException {
+        offer(data, 0, length, lengthPrefixed);
+    }
+
+    /**
+     * Comme offer(data, length, lengthPrefixed), pour une frame à partir de
+     * offset (en-tête déjà lu sauté sans recopie)
+     */
+    @Override
+    public void offer(byte[] data, int offset, int length, boolean lengthPrefixed) throws IOException {
+        lock.lock();
+        try {
+            while (paused && !closed)
+                belowLow.await();
+            if (closed)
+                throw new IOException("File de sortie fermée");
+
+            boolean wasEmpty;
+            if (ring != null) {
+                wasEmpty = ring.isEmpty();
+                long before = ring.size();
+                if (lengthPrefixed)
+                    ring.writeVarInt(length);
+                ring.write(data, offset, length);
+                length = (int) (ring.size() - before);
+            } else {
+                frames.addLast(new Frame(data, offset, length, lengthPrefixed));
+                wasEmpty = frames.size() == 1;
+            }
+            bytes += length;
+            if (depthGauge != null)
+                depthGauge.add(length);
+            if (bytes >= highWatermark) {
+                paused = true;
+                if (pauseCounter != null)
+                    pauseCounter.increment();
+            }
+            if (wasEmpty)
+                notEmpty.signal();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrompu en attente de la file de sortie");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Boucle d'écriture: vide la file par lots vers out jusqu'à close() (les
+     * frames restantes sont écrites avant de sortir)
+     *
+     * @param writing appelé avec true avant un lot, false après son flush
+     *                (détection d'écriture bloquée)
+     */
+    public void drainTo(OutputStream out, WriteListener writing) throws IOException {
+        PooledOutputStream frameOut = out instanceof PooledOutputStream ? (PooledOutputStream) out : null;
+        if (ring != null) {
+            drainRingTo(out, writing);
+            return;
+        }
+        ArrayDeque<Frame> batch = new ArrayDeque<>();
+        while (true) {
+            long batchBytes = 0;
+            lock.lock();
+            try {
+                while (frames.isEmpty() && !closed)
+                    notEmpty.await();
+                if (frames.isEmpty())
+                    return;
+                Frame frame;
+                while ((frame = frames.pollFirst()) != null) {
+                    batch.addLast(frame);
+                    batchBytes += frame.length;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrompu en attente de frames");
+            } finally {
+                lock.unlock();
+            }
+
+            writing.onWrite(true);
+            try {
+                Frame frame;
+                while ((frame = batch.pollFirst()) != null) {
+                    if (frameOut != null) {
+                        // En-tête et contenu en segments, sans write(int) par octet
+                        frameOut.writeFrame(frame.data, frame.offset, frame.length, frame.lengthPrefixed);
+                        continue;
+                    }
+                    if (frame.lengthPrefixed)
+                        VarInt.write(out, frame.length);
+                    out.write(frame.data, frame.offset, frame.length);
+                }
+                out.flush();
+            } finally {
+                // Lot écrit ou perdu (erreur): dans les deux cas il ne compte plus
+                batch.clear();
+                writing.onWrite(false);
+                release(batchBytes);
+            }
+        }
+    }
+
+    /**
+     * drainTo() en mode arène: l'anneau est copié par tranches (sous le
+     * verrou, une copie mémoire) dans un tampon de transfert écrit hors verrou
+     */
+    private void drainRingTo(OutputStream out, WriteListener writing) throws IOException {
+        while (true) {
+            lock.lock();
+            try {
+                while (ring.isEmpty() && !closed)
+                    notEmpty.await();
+                if (ring.isEmpty())
+                    return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrompu en attente de frames");
+            } finally {
+                lock.unlock();
+            }
+
+            writing.onWrite(true);
+            PooledBuffer transfer = ring.borrowTransfer();
+            long batchBytes = 0;
+            try {
+                byte[] chunk = transfer.array();
+                boolean drained = false;
+                while (!drained) {
+                    int count;
+                    lock.lock();
+                    try {
+                        count = ring.read(chunk, 0, chunk.length);
+                        drained = ring.isEmpty();
+                    } finally {
+                        lock.unlock();
+                    }
+                    batchBytes += count;
+                    out.write(chunk, 0, count);
+                }
+                out.flush();
+            } finally {
+                transfer.release();
+                writing.onWrite(false);
+                release(batchBytes);
+            }
+        }
+    }
+
+    /**
+     * Plus d'ajout possible; l'écrivain termine les frames en file puis sort
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            belowLow.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Abandonne les frames en file (écriture impossible)
+     */
+    public void discard() {
+        lock.lock();
+        try {
+            long dropped = 0;
+            Frame frame;
+            while ((frame = frames.pollFirst()) != null)
+                dropped += frame.length;
+            if (ring != null) {
+                dropped += ring.size();
+                ring.clear();
+            }
+            closed = true;
+            bytes -= dropped;
+            if (depthGauge != null)
+                depthGauge.add(-dropped);
+            notEmpty.signalAll();
+            belowLow.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean copiesOnOffer() {
+        return ring != null;
+    }
+
+    /**
+     * Octets en file ou en cours d'écriture
+     */
+    public long getQueuedBytes() {
+        lock.lock();
+        try {
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long written) {
+        lock.lock();
+        try {
+            bytes -= written;
+            if (depthGauge != null)
+                depthGauge.add(-written);
+            if (paused && bytes <= lowWatermark) {
+                paused = false;
+                belowLow.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Notifié autour de chaque lot écrit
+     */
+    public interface WriteListener {
+        void onWrite(boolean inProgress);
+    }
+
+    private static final class Frame {
+        final byte[] data;
+        final int offset;
+        final int length;
+        final boolean lengthPrefixed;
+
+        Frame(byte[] data, int offset, int length, boolean lengthPrefixed) {
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+            this.lengthPrefixed = lengthPrefixed;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.reverseaz.packet;
+
+import java.io.IOException;
+
+/**
+ * Bornes appliquées aux tailles annoncées par le pair, avant toute allocation
+ *
+ * Une frame annonce sa longueur (VarInt) et, compressée, sa taille
+ * décompressée: sans contrôle, un pair hostile ou bogué fait allouer des
+ * centaines de Mo en une frame. Les tailles incohérentes sont refusées dès
+ * l'en-tête (taille décompressée au-delà du ratio max de zlib, ~1032:1).
+ *
+ * Config: -Dreverseaz.frame.maxBytes et -Dreverseaz.frame.maxInflatedBytes
+ * (2 Mo chacun, le maximum que le client 1.9.4 accepte)
+ */
+public final class FrameLimits {
+
+    public static final int MAX_FRAME_BYTES = Integer.getInteger("reverseaz.frame.maxBytes", 2 * 1024 * 1024);
+    public static final int MAX_INFLATED_BYTES = Integer.getInteger("reverseaz.frame.maxInflatedBytes",
+            2 * 1024 * 1024);
+    // Ratio maximal atteignable par deflate (blocs de 258 octets répétés)
+    public static final int MAX_DEFLATE_RATIO = 1032;
+
+    private FrameLimits() {
+    }
+
+    /**
+     * Vérifie la longueur annoncée d'une frame avant de la lire
+     */
+    public static void checkFrameLength(int length) throws RejectedFrameException {
+        if (length > MAX_FRAME_BYTES)
+            throw new RejectedFrameException("frame de " + length + " octets (max " + MAX_FRAME_BYTES + ")");
+    }
+
+    /**
+     * Vérifie la taille décompressée annoncée par rapport aux données reçues
+     *
+     * @param compressedLength octets de données zlib dans la frame
+     */
+    public static void checkInflatedLength(int inflatedLength, int compressedLength) throws RejectedFrameException {
+        if (inflatedLength < 0)
+            throw new RejectedFrameException("taille décompressée négative (" + inflatedLength + ")");
+        if (inflatedLength > MAX_INFLATED_BYTES)
+            throw new RejectedFrameException(
+                    "taille décompressée de " + inflatedLength + " octets (max " + MAX_INFLATED_BYTES + ")");
+        if ((long) inflatedLength > (long) compressedLength * MAX_DEFLATE_RATIO)
+            throw new RejectedFrameException("taille décompressée de " + inflatedLength + " octets pour "
+                    + compressedLength + " octets compressés");
+    }
+
+    /**
+     * Frame refusée: la session est fermée (le flux ne peut pas être resynchronisé)
+     */
+    public static class RejectedFrameException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public RejectedFrameException(String message) {
+            super(message);
+        }
+    }
+}
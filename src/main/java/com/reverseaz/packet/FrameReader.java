@@ -0,0 +1,72 @@
+package com.reverseaz.packet;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Lecture des frames d'une direction (un seul thread lecteur)
+ *
+ * Sans réutilisation, chaque frame est un tableau neuf à sa taille exacte (la
+ * file de sortie le garde). Quand la file copie les frames (arène hors tas),
+ * un tableau de travail est réutilisé d'une frame à l'autre jusqu'à
+ * scratchBytes; seules les frames plus grandes allouent.
+ */
+public class FrameReader {
+
+    private final InputStream in;
+    private final int headroom;
+    private final int scratchBytes;
+    private byte[] scratch;
+    private int length;
+
+    /**
+     * @param headroom     octets laissés libres devant chaque frame
+     * @param scratchBytes taille max du tableau réutilisé (0 = jamais)
+     */
+    public FrameReader(InputStream in, int headroom, int scratchBytes) {
+        this.in = in;
+        this.headroom = headroom;
+        this.scratchBytes = scratchBytes;
+    }
+
+    /**
+     * Lit la frame suivante
+     *
+     * @return tableau valide sur [0, getLength()) (headroom compris), à ne
+     *         plus utiliser après l'appel suivant s'il est réutilisé; null en
+     *         fin de flux
+     */
+    public byte[] next() throws IOException {
+        int contentLength = FrameRelay.readLength(in);
+        if (contentLength < 0)
+            return null;
+        int frameLength = headroom + contentLength;
+        byte[] frame;
+        if (frameLength > scratchBytes) {
+            frame = new byte[frameLength];
+        } else {
+            if (scratch == null || scratch.length < frameLength)
+                scratch = new byte[FrameRelay.scratchSize(frameLength, scratchBytes)];
+            frame = scratch;
+        }
+        if (!FrameRelay.readFully(in, frame, headroom, frameLength))
+            return null;
+        length = frameLength;
+        return frame;
+    }
+
+    /**
+     * Octets valides dans le dernier tableau rendu par next()
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Octets du tableau de travail gardé
+     */
+    public int getScratchBytes() {
+        byte[] current = scratch;
+        return current != null ? current.length : 0;
+    }
+}
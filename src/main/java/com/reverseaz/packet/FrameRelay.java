@@ -0,0 +1,375 @@
+package com.reverseaz.packet;
+
+import com.reverseaz.VelocityModifier;
+import com.reverseaz.net.FrameSink;
+import com.reverseaz.net.PooledInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Chemin chaud du relay en Play: lecture d'une frame, (dé)compression,
+ * modification de la vélocité, mise en file
+ *
+ * Une frame lue est un tableau neuf qui appartient à la session jusqu'à son
+ * écriture: les en-têtes sont sautés par offset et la vélocité est modifiée
+ * en place, sans recopie. Allocations restantes par paquet: le tableau de la
+ * frame et, s'il y a lieu, celui du contenu décompressé (S2C) ou compressé
+ * (C2S). Budget vérifié par FrameRelayAllocationTest.
+ *
+ * Quand la file copie les frames (arène hors tas), ces tableaux deviennent
+ * des tableaux de travail réutilisés jusqu'à scratchBytes: plus aucune
+ * allocation par paquet. Un tableau de travail par direction: serverToClient
+ * et clientToServer sont chacun appelés par un seul thread.
+ */
+public class FrameRelay {
+
+    // Octet réservé devant une frame C2S: le DataLength 0 d'un paquet non
+    // compressé s'y écrit sans recopier le paquet
+    public static final int CLIENT_HEADROOM = 1;
+
+    // Entity Velocity en 1.9.4 (protocol 110)
+    private static final int PACKET_ENTITY_VELOCITY = 0x3B;
+    // Log de chaque paquet de KB modifié (-Dreverseaz.kb.log=false pour le couper)
+    private static final boolean LOG_VELOCITY = Boolean.parseBoolean(System.getProperty("reverseaz.kb.log", "true"));
+
+    private final VelocityModifier velocityModifier;
+    private final ZlibPool zlib;
+    private final ZlibOffload offload;
+    private final int streamInflateBytes;
+    private final int scratchBytes;
+
+    // Fixé pendant le login, avant le démarrage des threads du relay
+    private int compressionThreshold = -1;
+    private byte[] inflateScratch; // thread S2C
+    private byte[] deflateScratch; // thread C2S
+
+    /**
+     * @param streamInflateBytes au-delà, un paquet S2C est décompressé par
+     *                           tranches directement dans la file du client
+     */
+    public FrameRelay(VelocityModifier velocityModifier, ZlibPool zlib, ZlibOffload offload, int streamInflateBytes) {
+        this(velocityModifier, zlib, offload, streamInflateBytes, 0);
+    }
+
+    /**
+     * @param scratchBytes taille max des tableaux de travail gardés quand la
+     *                     file copie les frames (0 = jamais de réutilisation)
+     */
+    public FrameRelay(VelocityModifier velocityModifier, ZlibPool zlib, ZlibOffload offload, int streamInflateBytes,
+            int scratchBytes) {
+        this.velocityModifier = velocityModifier;
+        this.zlib = zlib;
+        this.offload = offload;
+        this.streamInflateBytes = streamInflateBytes;
+        this.scratchBytes = scratchBytes;
+    }
+
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    /**
+     * Lit une frame complète (VarInt de taille + contenu)
+     *
+     * @param headroom octets laissés libres devant le contenu
+     * @return le contenu à partir de headroom, ou null en fin de flux
+     */
+    public static byte[] readFrame(InputStream in, int headroom) throws IOException {
+        int length = readLength(in);
+        if (length < 0)
+            return null;
+        byte[] frame = new byte[headroom + length];
+        return readFully(in, frame, headroom, headroom + length) ? frame : null;
+    }
+
+    /**
+     * VarInt de taille d'une frame, vérifiée
+     *
+     * @return -1 en fin de flux
+     */
+    static int readLength(InputStream in) throws IOException {
+        // Décodé d'un bloc dans le tampon de la session quand il y est
+        int length = in instanceof PooledInputStream ? ((PooledInputStream) in).readVarInt() : VarInt.read(in);
+        if (length == -1)
+            return -1;
+        FrameLimits.checkFrameLength(length);
+        return length;
+    }
+
+    /**
+     * @return false si le flux se termine avant end
+     */
+    static boolean readFully(InputStream in, byte[] frame, int position, int end) throws IOException {
+        while (position < end) {
+            int read = in.read(frame, position, end - position);
+            if (read == -1)
+                return false;
+            position += read;
+        }
+        return true;
+    }
+
+    /**
+     * Paquet du serveur -> file du client, toujours non compressé (le client
+     * n'a pas reçu Set Compression)
+     */
+    public void serverToClient(byte[] frame, FrameSink toClient) throws IOException {
+        serverToClient(frame, frame.length, toClient);
+    }
+
+    /**
+     * Comme serverToClient(frame, toClient), pour les length premiers octets
+     * de frame (tableau de travail d'un FrameReader)
+     */
+    public void serverToClient(byte[] frame, int length, FrameSink toClient) throws IOException {
+        if (compressionThreshold < 0) {
+            // Paquet = [ID][Payload]
+            modifyVelocity(frame, 0, length);
+            toClient.offer(frame, 0, length, true);
+            return;
+        }
+
+        // Paquet = [DataLength][Data]
+        int dataLength = 0;
+        int offset = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (offset >= length || shift > 28)
+                throw new FrameLimits.RejectedFrameException("en-tête de compression invalide");
+            b = frame[offset++];
+            dataLength |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        int contentLength = length - offset;
+        if (dataLength == 0) {
+            // Non compressé par le serveur: l'en-tête est sauté
+            modifyVelocity(frame, offset, contentLength);
+            toClient.offer(frame, offset, contentLength, true);
+            return;
+        }
+        FrameLimits.checkInflatedLength(dataLength, contentLength);
+        if (dataLength >= streamInflateBytes) {
+            inflateLarge(frame, offset, contentLength, dataLength, toClient);
+            return;
+        }
+
+        byte[] data = inflateBuffer(dataLength, toClient);
+        Inflater inflater = zlib.acquireInflater();
+        try {
+            inflater.setInput(frame, offset, contentLength);
+            int count = inflater.inflate(data, 0, dataLength);
+            if (count != dataLength)
+                throw new FrameLimits.RejectedFrameException(
+                        "paquet décompressé de " + count + " octets, " + dataLength + " annoncés");
+        } catch (DataFormatException e) {
+            throw new IOException("Decompression failed", e);
+        } finally {
+            zlib.release(inflater);
+        }
+        modifyVelocity(data, 0, dataLength);
+        toClient.offer(data, 0, dataLength, true);
+    }
+
+    /**
+     * Paquet du client (lu avec CLIENT_HEADROOM) -> file du serveur, au format
+     * compressé si le serveur a activé la compression
+     */
+    public void clientToServer(byte[] frame, FrameSink toServer) throws IOException {
+        clientToServer(frame, frame.length, toServer);
+    }
+
+    /**
+     * Comme clientToServer(frame, toServer), pour les frameLength premiers
+     * octets de frame (headroom compris)
+     */
+    public void clientToServer(byte[] frame, int frameLength, FrameSink toServer) throws IOException {
+        int length = frameLength - CLIENT_HEADROOM;
+        if (compressionThreshold < 0) {
+            toServer.offer(frame, CLIENT_HEADROOM, length, true);
+            return;
+        }
+        if (length < compressionThreshold) {
+            // Format compressé, DataLength = 0 dans l'octet réservé
+            frame[0] = 0;
+            toServer.offer(frame, 0, frameLength, true);
+            return;
+        }
+
+        Deflater deflater = zlib.acquireDeflater();
+        try {
+            if (offload.accepts(length)) {
+                byte[] compressed = offload.deflate(deflater, frame, CLIENT_HEADROOM, length);
+                byte[] header = new byte[10];
+                int headerEnd = VarInt.write(header, 0, PacketBuffer.getVarIntSize(length) + compressed.length);
+                headerEnd = VarInt.write(header, headerEnd, length);
+                toServer.offer(header, 0, headerEnd, false);
+                toServer.offer(compressed, 0, compressed.length, false);
+                return;
+            }
+
+            // [DataLength][Data] dans un seul tableau: la place du VarInt est
+            // réservée devant les données compressées
+            int varIntSize = PacketBuffer.getVarIntSize(length);
+            byte[] out = deflateBuffer(varIntSize + deflateBound(length), toServer);
+            deflater.setInput(frame, CLIENT_HEADROOM, length);
+            deflater.finish();
+            int end = varIntSize;
+            while (!deflater.finished()) {
+                if (end == out.length)
+                    out = Arrays.copyOf(out, out.length * 2); // ne devrait pas arriver
+                end += deflater.deflate(out, end, out.length - end);
+            }
+            VarInt.write(out, 0, length);
+            toServer.offer(out, 0, end, true);
+        } finally {
+            zlib.release(deflater);
+        }
+    }
+
+    /**
+     * Gros paquet compressé: décompressé tranche par tranche directement dans
+     * la file du client (sur le pool zlib s'il est assez gros)
+     *
+     * Les paquets concernés (chunks, etc.) ne sont jamais des Entity Velocity:
+     * rien à modifier, seul l'en-tête de longueur change.
+     */
+    private void inflateLarge(byte[] frame, int offset, int length, int dataLength, FrameSink toClient)
+            throws IOException {
+        byte[] prefix = inflateBuffer(5, toClient);
+        toClient.offer(prefix, 0, VarInt.write(prefix, 0, dataLength), false);
+
+        // La file du client borne la mémoire: offer() bloque au seuil haut
+        boolean offloaded = offload.accepts(dataLength);
+        Inflater inflater = zlib.acquireInflater();
+        try {
+            inflater.setInput(frame, offset, length);
+            int remaining = dataLength;
+            while (remaining > 0) {
+                int sliceLength = Math.min(offload.getSliceBytes(), remaining);
+                byte[] chunk = inflateBuffer(sliceLength, toClient);
+                int filled = offload.inflate(inflater, chunk, sliceLength, offloaded);
+                if (filled < sliceLength)
+                    throw new FrameLimits.RejectedFrameException("paquet décompressé de "
+                            + (dataLength - remaining + filled) + " octets, " + dataLength + " annoncés");
+                toClient.offer(chunk, 0, filled, false);
+                remaining -= filled;
+            }
+        } finally {
+            zlib.release(inflater);
+        }
+    }
+
+    /**
+     * Modifie en place un paquet Entity Velocity si les multiplicateurs sont
+     * actifs (la structure du paquet est préservée)
+     *
+     * Entity Velocity format (protocol 110):
+     * - VarInt: Packet ID (0x3B)
+     * - VarInt: Entity ID
+     * - Short: Velocity X
+     * - Short: Velocity Y
+     * - Short: Velocity Z
+     */
+    private void modifyVelocity(byte[] packet, int offset, int length) {
+        // Taille minimale: 1 (packetId) + 1 (entityId min) + 6 (3 shorts) = 8 bytes
+        // 0x3B < 128: l'ID tient sur un octet
+        if (length < 8 || (packet[offset] & 0xFF) != PACKET_ENTITY_VELOCITY)
+            return;
+        if (velocityModifier.getMultiplierX() == 1.0 &&
+                velocityModifier.getMultiplierY() == 1.0 &&
+                velocityModifier.getMultiplierZ() == 1.0)
+            return;
+
+        // Taille du VarInt entityId
+        int end = offset + length;
+        long entityId = VarInt.decode(packet, offset + 1, end);
+        if (entityId == VarInt.INCOMPLETE || entityId == VarInt.MALFORMED)
+            return;
+        int velocityStart = offset + 1 + VarInt.decodedSize(entityId);
+        // Le paquet doit avoir EXACTEMENT la bonne taille
+        if (end != velocityStart + 6)
+            return;
+
+        short velX = readShort(packet, velocityStart);
+        short velY = readShort(packet, velocityStart + 2);
+        short velZ = readShort(packet, velocityStart + 4);
+        short newX = velocityModifier.modifyX(velX);
+        short newY = velocityModifier.modifyY(velY);
+        short newZ = velocityModifier.modifyZ(velZ);
+
+        if (LOG_VELOCITY)
+            System.out.println("[KB] Entity Velocity: (" + velX + "," + velY + "," + velZ +
+                    ") -> (" + newX + "," + newY + "," + newZ + ")");
+
+        writeShort(packet, velocityStart, newX);
+        writeShort(packet, velocityStart + 2, newY);
+        writeShort(packet, velocityStart + 4, newZ);
+    }
+
+    /**
+     * Tableau pour size octets décompressés: neuf si la file garde le tableau,
+     * sinon le tableau de travail S2C
+     */
+    private byte[] inflateBuffer(int size, FrameSink sink) {
+        if (!sink.copiesOnOffer() || size > scratchBytes)
+            return new byte[size];
+        if (inflateScratch == null || inflateScratch.length < size)
+            inflateScratch = new byte[scratchSize(size)];
+        return inflateScratch;
+    }
+
+    /**
+     * Comme inflateBuffer, pour la sortie du deflate C2S
+     */
+    private byte[] deflateBuffer(int size, FrameSink sink) {
+        if (!sink.copiesOnOffer() || size > scratchBytes)
+            return new byte[size];
+        if (deflateScratch == null || deflateScratch.length < size)
+            deflateScratch = new byte[scratchSize(size)];
+        return deflateScratch;
+    }
+
+    /**
+     * Octets des tableaux de travail gardés
+     */
+    public int getScratchBytes() {
+        byte[] inflate = inflateScratch;
+        byte[] deflate = deflateScratch;
+        return (inflate != null ? inflate.length : 0) + (deflate != null ? deflate.length : 0);
+    }
+
+    /**
+     * Puissance de 2 >= size (au moins 256), bornée par scratchBytes
+     */
+    static int scratchSize(int size, int scratchBytes) {
+        int rounded = Math.max(256, Integer.highestOneBit(Math.max(1, size - 1)) << 1);
+        return Math.max(size, Math.min(rounded, scratchBytes));
+    }
+
+    private int scratchSize(int size) {
+        return scratchSize(size, scratchBytes);
+    }
+
+    private static short readShort(byte[] data, int index) {
+        return (short) (((data[index] & 0xFF) << 8) | (data[index + 1] & 0xFF));
+    }
+
+    private static void writeShort(byte[] data, int index, short value) {
+        data[index] = (byte) ((value >> 8) & 0xFF);
+        data[index + 1] = (byte) (value & 0xFF);
+    }
+
+    /**
+     * Taille max du flux zlib pour length octets (compressBound de zlib)
+     */
+    private static int deflateBound(int length) {
+        return length + (length >> 12) + (length >> 14) + (length >> 25) + 13;
+    }
+}
@@ -59,24 +59,13 @@ public class PacketBuffer {
      * Lit un VarInt (format Minecraft)
      */
     public int readVarInt() {
-        int value = 0;
-        int position = 0;
-        byte currentByte;
-
-        do {
-            if (readerIndex >= writerIndex) {
-                throw new RuntimeException("VarInt too long or incomplete");
-            }
-            currentByte = data[readerIndex++];
-            value |= (currentByte & 0x7F) << position;
-            position += 7;
-
-            if (position > 35) {
-                throw new RuntimeException("VarInt too big");
-            }
-        } while ((currentByte & 0x80) != 0);
-
-        return value;
+        long decoded = VarInt.decode(data, readerIndex, writerIndex);
+        if (decoded == VarInt.INCOMPLETE)
+            throw new RuntimeException("VarInt too long or incomplete");
+        if (decoded == VarInt.MALFORMED)
+            throw new RuntimeException("VarInt too big");
+        readerIndex += VarInt.decodedSize(decoded);
+        return VarInt.decodedValue(decoded);
     }
 
     /**
@@ -93,26 +82,15 @@ public class PacketBuffer {
      * Écrit un VarInt
      */
     public void writeVarInt(int value) {
-        while ((value & ~0x7F) != 0) {
-            writeByte((value & 0x7F) | 0x80);
-            value >>>= 7;
-        }
-        writeByte(value);
+        ensureCapacity(writerIndex + VarInt.MAX_BYTES);
+        writerIndex = VarInt.write(data, writerIndex, value);
     }
 
     /**
      * Retourne la taille en bytes d'un VarInt
      */
     public static int getVarIntSize(int value) {
-        if ((value & 0xFFFFFF80) == 0)
-            return 1;
-        if ((value & 0xFFFFC000) == 0)
-            return 2;
-        if ((value & 0xFFE00000) == 0)
-            return 3;
-        if ((value & 0xF0000000) == 0)
-            return 4;
-        return 5;
+        return VarInt.size(value);
     }
 
     /**
@@ -0,0 +1,168 @@
+package com.reverseaz.packet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Codec VarInt (format Minecraft) partagé par tous les chemins du proxy
+ *
+ * Les valeurs de 1 et 2 octets (presque toutes les tailles et IDs de paquets)
+ * ont un chemin déroulé sans boucle. Quand au moins 5 octets sont disponibles,
+ * le décodage se fait sans test de borne par octet (le VarInt tient forcément
+ * dans la fenêtre). Le décodage depuis un tableau ne lève pas d'exception:
+ * un VarInt coupé rend INCOMPLETE (attendre d'autres octets), un VarInt de
+ * plus de 5 octets MALFORMED.
+ */
+public final class VarInt {
+
+    public static final int MAX_BYTES = 5;
+
+    /** decode(): VarInt pas encore complet dans [offset, limit) */
+    public static final long INCOMPLETE = 0L;
+    /** decode(): plus de 5 octets, flux invalide */
+    public static final long MALFORMED = -1L;
+
+    // Taille encodée selon Integer.numberOfLeadingZeros (0 à 32)
+    private static final byte[] SIZE_BY_LEADING_ZEROS = new byte[33];
+
+    static {
+        for (int zeros = 0; zeros <= 32; zeros++)
+            SIZE_BY_LEADING_ZEROS[zeros] = (byte) Math.max(1, (38 - zeros) / 7);
+    }
+
+    private VarInt() {
+    }
+
+    /**
+     * Taille encodée de value (1 à 5 octets), sans branche
+     */
+    public static int size(int value) {
+        return SIZE_BY_LEADING_ZEROS[Integer.numberOfLeadingZeros(value)];
+    }
+
+    /**
+     * Écrit value dans dst à partir de offset (dst doit avoir size(value)
+     * octets libres)
+     *
+     * @return l'index qui suit le VarInt
+     */
+    public static int write(byte[] dst, int offset, int value) {
+        if ((value & ~0x7F) == 0) {
+            dst[offset] = (byte) value;
+            return offset + 1;
+        }
+        if ((value & ~0x3FFF) == 0) {
+            dst[offset] = (byte) (value | 0x80);
+            dst[offset + 1] = (byte) (value >>> 7);
+            return offset + 2;
+        }
+        while ((value & ~0x7F) != 0) {
+            dst[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        dst[offset++] = (byte) value;
+        return offset;
+    }
+
+    /**
+     * Écrit value dans out
+     */
+    public static void write(OutputStream out, int value) throws IOException {
+        if ((value & ~0x7F) == 0) {
+            out.write(value);
+            return;
+        }
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Décode le VarInt qui commence à offset, sans lire au-delà de limit
+     *
+     * @return INCOMPLETE, MALFORMED, ou valeur et taille regroupées (voir
+     *         decodedValue / decodedSize)
+     */
+    public static long decode(byte[] src, int offset, int limit) {
+        if (offset >= limit)
+            return INCOMPLETE;
+        int b = src[offset];
+        if (b >= 0)
+            return pack(b, 1);
+        if (limit - offset >= MAX_BYTES)
+            return decodeWindow(src, offset, b);
+
+        // Moins de 5 octets: tests de borne à chaque octet
+        int value = b & 0x7F;
+        for (int shift = 7; shift < 35; shift += 7) {
+            if (++offset >= limit)
+                return INCOMPLETE;
+            b = src[offset];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return pack(value, shift / 7 + 1);
+        }
+        return MALFORMED;
+    }
+
+    public static int decodedValue(long decoded) {
+        return (int) decoded;
+    }
+
+    public static int decodedSize(long decoded) {
+        return (int) (decoded >>> 32);
+    }
+
+    /**
+     * Lit un VarInt octet par octet (flux sans tampon accessible)
+     *
+     * @return -1 en fin de flux
+     * @throws IOException VarInt de plus de 5 octets
+     */
+    public static int read(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0x80)
+            return b; // un octet, ou -1 en fin de flux
+        int value = b & 0x7F;
+        for (int shift = 7; shift < 35; shift += 7) {
+            b = in.read();
+            if (b == -1)
+                return -1;
+            value |= (b & 0x7F) << shift;
+            if (b < 0x80)
+                return value;
+        }
+        throw new IOException("VarInt too big");
+    }
+
+    /**
+     * Au moins 5 octets lisibles depuis offset, premier octet first déjà lu
+     * (bit de continuation posé)
+     */
+    private static long decodeWindow(byte[] src, int offset, int first) {
+        int value = first & 0x7F;
+        int b = src[offset + 1];
+        if (b >= 0)
+            return pack(value | b << 7, 2);
+        value |= (b & 0x7F) << 7;
+        b = src[offset + 2];
+        if (b >= 0)
+            return pack(value | b << 14, 3);
+        value |= (b & 0x7F) << 14;
+        b = src[offset + 3];
+        if (b >= 0)
+            return pack(value | b << 21, 4);
+        value |= (b & 0x7F) << 21;
+        b = src[offset + 4];
+        if (b < 0)
+            return MALFORMED;
+        return pack(value | b << 28, 5);
+    }
+
+    private static long pack(int value, int size) {
+        return ((long) size << 32) | (value & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,172 @@
+package com.reverseaz.packet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Pool partagé (ForkJoin, files FIFO) pour l'inflate/deflate des gros paquets
+ *
+ * Pendant une rafale de chunks, chaque session décompressant sur son propre
+ * thread met un thread de plus en compétition pour le CPU avec ceux qui ne
+ * relaient que des petits paquets (vélocité, keep-alive). Ici le travail zlib
+ * des gros paquets est borné à un cœur de moins que la machine (il en reste
+ * toujours un pour les sessions), et découpé en tranches
+ * (budget par itération): chaque tranche est une tâche, les sessions en
+ * rafale passent donc à tour de rôle. La session attend sa tranche avant
+ * d'envoyer la suivante: l'ordre de ses paquets est conservé.
+ *
+ * Config: -Dreverseaz.zlib.workers (cœurs - 1, 0 = tout sur le thread de la
+ * session, cas d'une machine mono-cœur), -Dreverseaz.zlib.offloadBytes
+ * (64 Ko), -Dreverseaz.zlib.sliceBytes (32 Ko)
+ */
+public class ZlibOffload {
+
+    private final ForkJoinPool pool;
+    private final int thresholdBytes;
+    private final int sliceBytes;
+
+    private final LongAdder slices = new LongAdder();
+    private final LongAdder workNanos = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    public ZlibOffload() {
+        this(Integer.getInteger("reverseaz.zlib.workers", Runtime.getRuntime().availableProcessors() - 1),
+                Integer.getInteger("reverseaz.zlib.offloadBytes", 65536),
+                Integer.getInteger("reverseaz.zlib.sliceBytes", 32768));
+    }
+
+    public ZlibOffload(int workers, int thresholdBytes, int sliceBytes) {
+        this.thresholdBytes = thresholdBytes;
+        this.sliceBytes = Math.max(1024, sliceBytes);
+        this.pool = workers <= 0 ? null : new ForkJoinPool(workers, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("Zlib-Worker-" + thread.getPoolIndex());
+            return thread;
+        }, null, true);
+    }
+
+    /**
+     * Paquet assez gros pour passer par le pool
+     */
+    public boolean accepts(int length) {
+        return pool != null && length >= thresholdBytes;
+    }
+
+    /**
+     * Taille d'une tranche (octets produits par inflate, lus par deflate)
+     */
+    public int getSliceBytes() {
+        return sliceBytes;
+    }
+
+    /**
+     * Remplit out[0, length) depuis l'inflater, sur le pool si offload, sinon
+     * sur place
+     *
+     * @return octets produits (moins que length si le flux zlib est fini ou
+     *         tronqué)
+     */
+    public int inflate(Inflater inflater, byte[] out, int length, boolean offload) throws IOException {
+        if (!offload)
+            return inflateFully(inflater, out, length);
+        return run(() -> {
+            try {
+                return inflateFully(inflater, out, length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Compresse data[offset, offset + length) tranche par tranche sur le pool
+     */
+    public byte[] deflate(Deflater deflater, byte[] data, int offset, int length) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length / 2);
+        byte[] buffer = new byte[sliceBytes];
+        int end = offset + length;
+        for (int position = offset; position < end; position += sliceBytes) {
+            int start = position;
+            int sliceLength = Math.min(sliceBytes, end - position);
+            run(() -> {
+                deflater.setInput(data, start, sliceLength);
+                boolean last = start + sliceLength == end;
+                if (last)
+                    deflater.finish();
+                while (last ? !deflater.finished() : !deflater.needsInput()) {
+                    int count = deflater.deflate(buffer);
+                    out.write(buffer, 0, count);
+                }
+                return null;
+            });
+        }
+        return out.toByteArray();
+    }
+
+    public long getSlices() {
+        return slices.sum();
+    }
+
+    @Override
+    public String toString() {
+        if (pool == null)
+            return "zlib: sur les threads de session (offload désactivé)";
+        long count = getSlices();
+        return String.format("zlib: %d workers, %d tranches (travail moy. %.0f µs, attente moy. %.0f µs), en file=%d",
+                pool.getParallelism(), count, count > 0 ? workNanos.sum() / 1e3 / count : 0.0,
+                count > 0 ? waitNanos.sum() / 1e3 / count : 0.0, pool.getQueuedSubmissionCount());
+    }
+
+    /**
+     * Exécute une tranche sur le pool et l'attend (join non interruptible:
+     * l'état zlib n'est jamais rendu pendant qu'un worker l'utilise)
+     */
+    private <T> T run(Supplier<T> work) throws IOException {
+        long submitted = System.nanoTime();
+        long[] started = new long[1];
+        ForkJoinTask<T> task = pool.submit(() -> {
+            started[0] = System.nanoTime();
+            T result = work.get();
+            workNanos.add(System.nanoTime() - started[0]);
+            return result;
+        });
+        try {
+            return task.join();
+        } catch (RuntimeException e) {
+            // join() peut réemballer l'exception levée sur le worker
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException)
+                    throw (IOException) cause;
+            }
+            throw e;
+        } finally {
+            slices.increment();
+            if (started[0] != 0)
+                waitNanos.add(started[0] - submitted);
+        }
+    }
+
+    private static int inflateFully(Inflater inflater, byte[] out, int length) throws IOException {
+        int filled = 0;
+        try {
+            while (filled < length) {
+                int count = inflater.inflate(out, filled, length - filled);
+                if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                filled += count;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Decompression failed", e);
+        }
+        return filled;
+    }
+}
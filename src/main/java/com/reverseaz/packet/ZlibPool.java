@@ -0,0 +1,68 @@
+package com.reverseaz.packet;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Inflater/Deflater partagés entre sessions
+ *
+ * L'état zlib natif pèse ~40 Ko (inflate) et ~260 Ko (deflate): le garder par
+ * session coûte cher pour des sessions surtout inactives, le recréer à chaque
+ * paquet coûte un malloc/free natif. Ici on emprunte le temps d'un paquet.
+ */
+public class ZlibPool {
+
+    private final int maxPooled;
+    private final ConcurrentLinkedQueue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledInflaters = new AtomicInteger();
+    private final AtomicInteger pooledDeflaters = new AtomicInteger();
+
+    public ZlibPool(int maxPooled) {
+        this.maxPooled = maxPooled;
+    }
+
+    public Inflater acquireInflater() {
+        Inflater inflater = inflaters.poll();
+        if (inflater == null)
+            return new Inflater();
+        pooledInflaters.decrementAndGet();
+        return inflater;
+    }
+
+    public void release(Inflater inflater) {
+        if (pooledInflaters.incrementAndGet() > maxPooled) {
+            pooledInflaters.decrementAndGet();
+            inflater.end();
+            return;
+        }
+        inflater.reset();
+        inflaters.offer(inflater);
+    }
+
+    public Deflater acquireDeflater() {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null)
+            return new Deflater();
+        pooledDeflaters.decrementAndGet();
+        return deflater;
+    }
+
+    public void release(Deflater deflater) {
+        if (pooledDeflaters.incrementAndGet() > maxPooled) {
+            pooledDeflaters.decrementAndGet();
+            deflater.end();
+            return;
+        }
+        deflater.reset();
+        deflaters.offer(deflater);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("zlib en réserve: inflaters=%d deflaters=%d (max %d)", pooledInflaters.get(),
+                pooledDeflaters.get(), maxPooled);
+    }
+}
@@ -0,0 +1,68 @@
+package com.reverseaz.auth;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Implémentation Java 11+: java.net.http.HttpClient maintient un pool de
+ * connexions (et multiplexe en HTTP/2 quand le serveur le supporte), et
+ * sendAsync() n'occupe aucun thread pendant l'échange réseau
+ *
+ * Compilée uniquement par le profil Maven jdk11-http, chargée par réflexion
+ * depuis MojangHttpClient.create()
+ */
+public class JdkMojangHttpClient extends MojangHttpClient {
+
+    private final HttpClient client;
+
+    public JdkMojangHttpClient(int maxConcurrent) {
+        super(maxConcurrent);
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(TIMEOUT_MS))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @Override
+    protected Response execute(String method, String url, String bearerToken, String jsonBody) throws IOException {
+        try {
+            HttpResponse<String> response = client.send(request(method, url, bearerToken, jsonBody),
+                    HttpResponse.BodyHandlers.ofString());
+            return toResponse(response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Requête interrompue", e);
+        }
+    }
+
+    @Override
+    protected CompletableFuture<Response> executeAsync(String method, String url, String bearerToken,
+            String jsonBody) {
+        return client.sendAsync(request(method, url, bearerToken, jsonBody), HttpResponse.BodyHandlers.ofString())
+                .thenApply(JdkMojangHttpClient::toResponse);
+    }
+
+    private static HttpRequest request(String method, String url, String bearerToken, String jsonBody) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(TIMEOUT_MS));
+        if (bearerToken != null) {
+            request.header("Authorization", "Bearer " + bearerToken);
+        }
+        if (jsonBody != null) {
+            request.header("Content-Type", "application/json");
+            request.method(method, HttpRequest.BodyPublishers.ofString(jsonBody));
+        } else {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        return request.build();
+    }
+
+    private static Response toResponse(HttpResponse<String> response) {
+        return new Response(response.statusCode(), response.body() != null ? response.body() : "");
+    }
+}
@@ -0,0 +1,66 @@
+package com.reverseaz;
+
+import com.reverseaz.packet.PacketBuffer;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.Inflater;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Frames des paquets de login envoyés par le proxy: taille, DataLength et
+ * contenu cohérents pour tous les seuils de compression, même très bas
+ */
+public class ProxySessionPacketTest {
+
+    private static final int PACKET_ID = 0x02;
+
+    @Test
+    public void framesDecodeForEveryThreshold() throws Exception {
+        for (int threshold : new int[] { -1, 0, 1, 2, 4, 5, 256 }) {
+            for (int payloadLength : new int[] { 0, 1, 2, 3, 4, 16, 300, 70000 }) {
+                byte[] payload = new byte[payloadLength];
+                for (int i = 0; i < payloadLength; i++)
+                    payload[i] = (byte) (i * 31 + payloadLength);
+
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ProxySession.writePacket(out, PACKET_ID, payload, threshold);
+
+                byte[] expected = new byte[payloadLength + 1];
+                expected[0] = PACKET_ID;
+                System.arraycopy(payload, 0, expected, 1, payloadLength);
+                assertArrayEquals("seuil " + threshold + ", " + payloadLength + " octets", expected,
+                        decodeFrame(out.toByteArray(), threshold));
+            }
+        }
+    }
+
+    /**
+     * Décode une frame comme le serveur: [Length][DataLength][Data] si
+     * compressée, la taille annoncée doit être la taille décompressée exacte
+     */
+    private static byte[] decodeFrame(byte[] wire, int threshold) throws Exception {
+        PacketBuffer frame = PacketBuffer.wrap(wire, wire.length);
+        int length = frame.readVarInt();
+        assertEquals("taille de frame", frame.readableBytes(), length);
+        if (threshold < 0)
+            return frame.readBytes(length);
+
+        int dataLength = frame.readVarInt();
+        byte[] data = frame.readBytes(frame.readableBytes());
+        if (dataLength == 0)
+            return data;
+
+        Inflater inflater = new Inflater();
+        inflater.setInput(data);
+        byte[] inflated = new byte[dataLength + 16];
+        int count = inflater.inflate(inflated);
+        assertEquals("taille décompressée annoncée", dataLength, count);
+        assertEquals(true, inflater.finished());
+        inflater.end();
+        return Arrays.copyOf(inflated, count);
+    }
+}
@@ -0,0 +1,104 @@
+package com.reverseaz.auth;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Borne de concurrence des requêtes asynchrones: celles au-delà attendent
+ * en file et partent quand une requête se termine, pour les deux
+ * implémentations
+ */
+public class MojangHttpClientTest {
+
+    private static final int MAX_CONCURRENT = 2;
+    private static final int REQUESTS = 8;
+
+    private HttpServer server;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final CountDownLatch saturated = new CountDownLatch(MAX_CONCURRENT);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            saturated.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+            }
+            inFlight.decrementAndGet();
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    public void jdkClientQueuesBeyondTheBound() throws Exception {
+        assertBounded(MojangHttpClient.create(MAX_CONCURRENT));
+    }
+
+    @Test
+    public void urlConnectionClientQueuesBeyondTheBound() throws Exception {
+        assertBounded(new UrlConnectionHttpClient(MAX_CONCURRENT));
+    }
+
+    private void assertBounded(MojangHttpClient client) throws Exception {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        List<CompletableFuture<MojangHttpClient.Response>> futures = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++)
+            futures.add(client.sendAsync("GET", url, null, null));
+
+        assertTrue(saturated.await(5, TimeUnit.SECONDS));
+        Thread.sleep(200); // laisse passer une requête de trop, s'il y en a
+        assertEquals(MAX_CONCURRENT, inFlight.get());
+        // Les requêtes en file n'occupent aucun thread du client
+        assertTrue(dispatcherThreads() + " threads Mojang-HTTP", dispatcherThreads() <= MAX_CONCURRENT);
+        release.countDown();
+
+        for (CompletableFuture<MojangHttpClient.Response> future : futures) {
+            MojangHttpClient.Response response = future.get(5, TimeUnit.SECONDS);
+            assertEquals(200, response.code);
+            assertEquals("ok", response.body);
+        }
+        assertEquals(MAX_CONCURRENT, maxInFlight.get());
+    }
+
+    private static long dispatcherThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("Mojang-HTTP-"))
+                .count();
+    }
+}
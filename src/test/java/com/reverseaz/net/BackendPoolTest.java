@@ -0,0 +1,106 @@
+package com.reverseaz.net;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Un socket du pool fermé par le serveur n'est pas rendu à une session; sans
+ * trafic, le pool (min 0) revient à zéro socket
+ */
+public class BackendPoolTest {
+
+    private ServerSocket server;
+    private BackendTarget target;
+    private BackendPool pool;
+    private final List<Socket> accepted = new CopyOnWriteArrayList<>();
+
+    @After
+    public void tearDown() throws IOException {
+        if (pool != null)
+            pool.close();
+        if (target != null)
+            target.close();
+        for (Socket socket : accepted)
+            socket.close();
+        if (server != null)
+            server.close();
+    }
+
+    @Test
+    public void socketClosedByServerIsReplaced() throws Exception {
+        // Le serveur ferme la première connexion (redémarrage, timeout), garde les suivantes
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(() -> {
+            try {
+                server.accept().close();
+                while (true)
+                    accepted.add(server.accept());
+            } catch (IOException ignored) {
+            }
+        }, "Pool-Test-Acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        target = new BackendTarget("127.0.0.1", server.getLocalPort(), 60000);
+        pool = new BackendPool(target, 1, 1, 60000);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.getIdleCount() == 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(1, pool.getIdleCount());
+        Thread.sleep(100); // fermeture côté serveur reçue
+
+        try (Socket socket = pool.acquire().get(5, TimeUnit.SECONDS)) {
+            socket.setSoTimeout(50);
+            try {
+                socket.getInputStream().read();
+                fail("socket rendu fermé par le serveur");
+            } catch (SocketTimeoutException expected) {
+            }
+            assertTrue(accepted.size() >= 1);
+        }
+    }
+
+    @Test
+    public void idlePoolShrinksToZeroAfterTrafficStops() throws Exception {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(() -> {
+            try {
+                while (true)
+                    accepted.add(server.accept());
+            } catch (IOException ignored) {
+            }
+        }, "Pool-Test-Acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        target = new BackendTarget("127.0.0.1", server.getLocalPort(), 60000);
+        pool = new BackendPool(target, 0, 8, 60000);
+        for (int i = 0; i < 3; i++)
+            pool.acquire().get(5, TimeUnit.SECONDS).close();
+        pool.maintain();
+        assertTrue("taille cible " + pool.getTargetSize(), pool.getTargetSize() > 0);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.getIdleCount() == 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertTrue(pool.getIdleCount() > 0);
+
+        // Plus d'arrivées: quelques ticks suffisent pour tout fermer
+        for (int tick = 0; tick < 10; tick++)
+            pool.maintain();
+        assertEquals(0, pool.getTargetSize());
+        assertEquals(0, pool.getIdleCount());
+    }
+}
@@ -0,0 +1,155 @@
+package com.reverseaz.net;
+
+import com.reverseaz.packet.FrameRelay;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Comptage de références des tampons et détecteur de fuites en mode
+ * paranoïaque (chaque emprunt suivi)
+ */
+public class BufferPoolLeakTest {
+
+    private static final long GC_TIMEOUT_MS = 10000;
+
+    @Test
+    public void lastReleaseRecyclesTheArray() {
+        BufferPool pool = new BufferPool(1024, 4, new LeakDetector(0, false));
+        PooledBuffer buffer = pool.acquire();
+        byte[] array = buffer.array();
+        buffer.retain();
+
+        assertFalse(buffer.release());
+        assertEquals(1, pool.getInUse());
+        assertSame(array, buffer.array());
+
+        assertTrue(buffer.release());
+        assertEquals(0, pool.getInUse());
+        assertSame(array, pool.acquire().array());
+    }
+
+    @Test
+    public void releasedBufferCannotBeUsed() {
+        BufferPool pool = new BufferPool(1024, 4, new LeakDetector(0, false));
+        PooledBuffer buffer = pool.acquire();
+        buffer.release();
+
+        expectIllegalState(buffer::release);
+        expectIllegalState(buffer::retain);
+        expectIllegalState(buffer::array);
+        assertEquals(0, buffer.refCount());
+        assertEquals(0, pool.getInUse());
+    }
+
+    @Test
+    public void leakIsReportedWithAllocationSite() throws InterruptedException {
+        RecordingDetector detector = new RecordingDetector();
+        BufferPool pool = new BufferPool(1024, 4, detector);
+        pool.acquire().release();
+        leakOneBuffer(pool);
+
+        awaitLeaks(detector, 1);
+        assertEquals(1, detector.sites.size());
+        assertTrue("pile d'allocation: " + detector.sites.get(0),
+                detector.sites.get(0).contains(BufferPoolLeakTest.class.getName() + ".leakOneBuffer"));
+    }
+
+    @Test
+    public void relayStreamsReleaseEveryBuffer() throws IOException, InterruptedException {
+        RecordingDetector detector = new RecordingDetector();
+        BufferPool pool = new BufferPool(8192, 4, detector);
+
+        // Frames de 1 à 3000 octets: tampons empruntés, rendus, à cheval sur deux lectures
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        for (int length = 1; length <= 3000; length += 7) {
+            writeVarInt(frames, length);
+            frames.write(new byte[length], 0, length);
+        }
+        PooledInputStream in = new PooledInputStream(new ByteArrayInputStream(frames.toByteArray()), pool);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        PooledOutputStream out = new PooledOutputStream(sink, pool);
+
+        int count = 0;
+        byte[] frame;
+        while ((frame = FrameRelay.readFrame(in, 0)) != null) {
+            out.write(frame, 0, Math.min(frame.length, 100));
+            if (++count % 16 == 0)
+                out.flush();
+        }
+        out.flush();
+
+        assertEquals(429, count);
+        assertTrue(detector.getTracked() > 0);
+        assertEquals(0, pool.getInUse());
+        in = null;
+        out = null;
+        forceGc();
+        detector.reportLeaks();
+        assertEquals(0, detector.getLeaks());
+    }
+
+    private static void leakOneBuffer(BufferPool pool) {
+        assertNotNull(pool.acquire().array());
+    }
+
+    private static void awaitLeaks(LeakDetector detector, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + GC_TIMEOUT_MS;
+        while (detector.getLeaks() < expected && System.currentTimeMillis() < deadline) {
+            forceGc();
+            detector.reportLeaks();
+        }
+        assertEquals(expected, detector.getLeaks());
+    }
+
+    private static void forceGc() throws InterruptedException {
+        System.gc();
+        Thread.sleep(20);
+    }
+
+    private static void expectIllegalState(Runnable action) {
+        try {
+            action.run();
+            fail("IllegalStateException attendue");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Mode paranoïaque, fuites gardées pour les assertions au lieu d'être loguées
+     */
+    private static final class RecordingDetector extends LeakDetector {
+        final List<String> sites = new ArrayList<>();
+
+        RecordingDetector() {
+            super(0, true);
+        }
+
+        @Override
+        protected void onLeak(String label, Throwable site) {
+            StringBuilder trace = new StringBuilder(label);
+            for (StackTraceElement frame : site.getStackTrace())
+                trace.append('\n').append(frame.getClassName()).append('.').append(frame.getMethodName());
+            sites.add(trace.toString());
+        }
+    }
+}
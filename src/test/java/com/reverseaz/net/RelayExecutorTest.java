@@ -0,0 +1,51 @@
+package com.reverseaz.net;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Pool de relay partagé: nombre de threads borné, refus immédiat au-delà,
+ * boucles actives comptées par listener
+ */
+public class RelayExecutorTest {
+
+    @Test
+    public void loopsBeyondTheBoundAreRejected() throws Exception {
+        RelayExecutor executor = new RelayExecutor(2);
+        ListenerMetrics metrics = new ListenerMetrics();
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable loop = () -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+            }
+        };
+
+        Future<?> first = executor.submit(loop, metrics);
+        Future<?> second = executor.submit(loop, metrics);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(2, metrics.getRelayLoops());
+        try {
+            executor.submit(loop, metrics);
+            fail("la troisième boucle aurait dû être refusée");
+        } catch (RejectedExecutionException expected) {
+        }
+        assertEquals(1, executor.getRejected());
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        assertEquals(0, metrics.getRelayLoops());
+        assertEquals(2, executor.getLargestPoolSize());
+    }
+}
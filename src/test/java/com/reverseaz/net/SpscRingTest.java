@@ -0,0 +1,70 @@
+package com.reverseaz.net;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Anneau producteur/consommateur: ordre des frames, octets en attente et
+ * borne en octets
+ */
+public class SpscRingTest {
+
+    @Test
+    public void framesArriveInOrderAndBytesDrainToZero() throws Exception {
+        SpscRing ring = new SpscRing(8, 4096);
+        int frames = 20000;
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < frames; i++) {
+                    byte[] frame = new byte[1 + i % 700];
+                    frame[0] = (byte) i;
+                    ring.put(frame);
+                }
+                ring.close();
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        }, "Ring-Test-Producer");
+        producer.start();
+
+        for (int i = 0; i < frames; i++) {
+            byte[] frame = ring.take();
+            assertEquals(1 + i % 700, frame.length);
+            assertEquals((byte) i, frame[0]);
+        }
+        assertNull(ring.take());
+        producer.join();
+        assertNull(failure.get());
+        assertEquals(0, ring.getQueuedBytes());
+    }
+
+    @Test
+    public void putWaitsWhileBytesAreOverTheBound() throws Exception {
+        SpscRing ring = new SpscRing(16, 100);
+        ring.put(new byte[120]); // anneau vide: passe malgré la borne
+        assertEquals(120, ring.getQueuedBytes());
+
+        Thread producer = new Thread(() -> {
+            try {
+                ring.put(new byte[10]);
+            } catch (IOException ignored) {
+            }
+        }, "Ring-Test-Producer");
+        producer.start();
+        producer.join(200);
+        assertTrue("put() aurait dû attendre", producer.isAlive());
+
+        assertEquals(120, ring.take().length);
+        producer.join(2000);
+        assertEquals(10, ring.getQueuedBytes());
+        assertEquals(10, ring.take().length);
+        assertEquals(0, ring.getQueuedBytes());
+    }
+}
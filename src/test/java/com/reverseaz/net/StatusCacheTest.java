@@ -0,0 +1,121 @@
+package com.reverseaz.net;
+
+import com.reverseaz.packet.PacketBuffer;
+import com.reverseaz.packet.VarInt;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Fetchs de status indépendants d'un backend à l'autre: un backend qui
+ * accepte la connexion mais ne répond jamais ne retarde pas les autres
+ */
+public class StatusCacheTest {
+
+    private static final String JSON = "{\"description\":{\"text\":\"ok\"}}";
+
+    private final List<ServerSocket> servers = new ArrayList<>();
+    private final List<BackendTarget> targets = new ArrayList<>();
+
+    @After
+    public void tearDown() throws IOException {
+        for (BackendTarget target : targets)
+            target.close();
+        for (ServerSocket server : servers)
+            server.close();
+    }
+
+    @Test
+    public void silentBackendDoesNotDelayOthers() throws IOException {
+        // Connexion acceptée par le noyau (backlog), aucune réponse: le fetch
+        // bloque jusqu'au timeout de lecture (5 s)
+        ServerSocket silent = listen();
+        BackendTarget stuck = target(silent);
+        assertNull(stuck.getStatusCache().get(100));
+
+        BackendTarget healthy = target(statusServer());
+        long start = System.nanoTime();
+        String json = healthy.getStatusCache().get(2000);
+        long millis = (System.nanoTime() - start) / 1000000;
+
+        assertEquals(JSON, json);
+        assertTrue("status servi en " + millis + " ms", millis < 2000);
+    }
+
+    private BackendTarget target(ServerSocket server) {
+        BackendTarget target = new BackendTarget("127.0.0.1", server.getLocalPort(), 60000);
+        targets.add(target);
+        return target;
+    }
+
+    private ServerSocket listen() throws IOException {
+        ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        servers.add(server);
+        return server;
+    }
+
+    /**
+     * Répond Status Response à chaque Handshake + Status Request (une
+     * connexion par thread, les sockets pré-connectés restent muets)
+     */
+    private ServerSocket statusServer() throws IOException {
+        ServerSocket server = listen();
+        Thread acceptor = new Thread(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    Thread handler = new Thread(() -> answer(socket), "Status-Test-Handler");
+                    handler.setDaemon(true);
+                    handler.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }, "Status-Test-Acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return server;
+    }
+
+    private static void answer(Socket socket) {
+        try (Socket closing = socket) {
+            InputStream in = socket.getInputStream();
+            skipFrame(in); // Handshake
+            skipFrame(in); // Status Request
+
+            byte[] json = JSON.getBytes(StandardCharsets.UTF_8);
+            PacketBuffer content = new PacketBuffer(json.length + 8);
+            content.writeVarInt(0x00);
+            content.writeVarInt(json.length);
+            content.writeBytes(json, 0, json.length);
+            PacketBuffer frame = new PacketBuffer(content.getWriterIndex() + 5);
+            frame.writeVarInt(content.getWriterIndex());
+            frame.writeBytes(content.getData(), 0, content.getWriterIndex());
+            OutputStream out = socket.getOutputStream();
+            out.write(frame.getData(), 0, frame.getWriterIndex());
+            out.flush();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static void skipFrame(InputStream in) throws IOException {
+        int length = VarInt.read(in);
+        if (length < 0)
+            throw new IOException("fin de flux");
+        new DataInputStream(in).readFully(new byte[length]);
+    }
+}
@@ -0,0 +1,469 @@
+package com.reverseaz.packet;
+
+import com.reverseaz.VelocityModifier;
+import com.reverseaz.auth.CipherStreams;
+import com.reverseaz.auth.EncryptionUtil;
+import com.reverseaz.net.BufferPool;
+import com.reverseaz.net.FrameSink;
+import com.reverseaz.net.PooledInputStream;
+import com.reverseaz.net.PooledOutputStream;
+import com.reverseaz.net.SessionArena;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.crypto.Cipher;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Octets alloués par paquet sur le thread du relay (lecture de la frame,
+ * déchiffrement, (dé)compression, vélocité, mise en file), mesurés avec
+ * getThreadAllocatedBytes sur un corpus fixe de frames protocol 110
+ *
+ * Échoue si un scénario dépasse son budget (allocation-budget.properties).
+ * Budget en octets par paquet, tableaux de frame compris: le corpus étant
+ * fixe, le minimum est connu (voir le fichier). Les scénarios arena passent
+ * par FrameReader et un anneau hors tas (SessionArena): rien par paquet.
+ */
+public class FrameRelayAllocationTest {
+
+    private static final int WARMUP_PACKETS = 20000;
+    private static final int MEASURED_PACKETS = 20000;
+    private static final int COMPRESSION_THRESHOLD = 256;
+    private static final byte[] SHARED_SECRET = "0123456789abcdef".getBytes();
+
+    private static final Properties BUDGET = new Properties();
+    private static com.sun.management.ThreadMXBean threads;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        try (InputStream in = FrameRelayAllocationTest.class.getResourceAsStream("/allocation-budget.properties")) {
+            BUDGET.load(in);
+        }
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue("getThreadAllocatedBytes indisponible sur cette JVM",
+                bean instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    // =============== S2C ===============
+
+    @Test
+    public void serverToClientUncompressed() throws Exception {
+        measureServerToClient("s2c.uncompressed", serverCorpus(), -1, false, 1.0);
+    }
+
+    @Test
+    public void serverToClientArena() throws Exception {
+        byte[][] corpus = { velocity(1234, 800, 3000, -800), relativeMove(1234), keepAlive(42), chunkData(1024) };
+        measureServerToClient("s2c.arena", corpus, COMPRESSION_THRESHOLD, true, 0.5, true);
+    }
+
+    @Test
+    public void serverToClientVelocityModified() throws Exception {
+        measureServerToClient("s2c.velocity.modified", serverCorpus(), -1, false, 0.5);
+    }
+
+    @Test
+    public void serverToClientCompressionPassthrough() throws Exception {
+        measureServerToClient("s2c.compressed.passthrough", serverCorpus(), COMPRESSION_THRESHOLD, false, 1.0);
+    }
+
+    @Test
+    public void serverToClientInflate() throws Exception {
+        measureServerToClient("s2c.compressed.inflate", new byte[][] { chunkData(1024) }, COMPRESSION_THRESHOLD,
+                false, 1.0);
+    }
+
+    @Test
+    public void serverToClientEncrypted() throws Exception {
+        byte[][] corpus = { velocity(1234, 800, 3000, -800), relativeMove(1234), keepAlive(42), chunkData(1024) };
+        measureServerToClient("s2c.encrypted", corpus, COMPRESSION_THRESHOLD, true, 0.5);
+    }
+
+    // =============== C2S ===============
+
+    @Test
+    public void clientToServerUncompressed() throws Exception {
+        measureClientToServer("c2s.uncompressed", clientCorpus(), -1, false);
+    }
+
+    @Test
+    public void clientToServerArena() throws Exception {
+        byte[][] corpus = { playerPosition(), keepAliveResponse(42), animation(), pluginMessage(1024) };
+        measureClientToServer("c2s.arena", corpus, COMPRESSION_THRESHOLD, true, true);
+    }
+
+    @Test
+    public void clientToServerCompressionPassthrough() throws Exception {
+        measureClientToServer("c2s.compressed.passthrough", clientCorpus(), COMPRESSION_THRESHOLD, false);
+    }
+
+    @Test
+    public void clientToServerDeflate() throws Exception {
+        measureClientToServer("c2s.compressed.deflate", new byte[][] { pluginMessage(1024) }, COMPRESSION_THRESHOLD,
+                false);
+    }
+
+    @Test
+    public void clientToServerEncrypted() throws Exception {
+        measureClientToServer("c2s.encrypted", clientCorpus(), COMPRESSION_THRESHOLD, true);
+    }
+
+    @Test
+    public void clientToServerEncryptedWrite() throws Exception {
+        // Côté écriture vers le serveur chiffré: frames posées en clair dans le
+        // tampon du lot, chiffrées sur place au flush (un lot = 4 paquets)
+        byte[][] corpus = clientCorpus();
+        byte[] plain = encodeClientFrames(corpus);
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        PooledOutputStream out = encryptedOutput(wire);
+        int[] next = { 0 };
+        RelayStep step = () -> {
+            byte[] packet = corpus[next[0]++ % corpus.length];
+            out.writeFrame(packet, 0, packet.length, true);
+            if (next[0] % 4 == 0)
+                out.flush();
+        };
+
+        // Octets envoyés = frames en clair chiffrées d'un bloc
+        for (int i = 0; i < corpus.length * 8; i++)
+            step.run();
+        out.flush();
+        byte[] expected = Arrays.copyOf(plain, wire.size());
+        assertArrayEquals(EncryptionUtil.createAESCipher(Cipher.ENCRYPT_MODE, SHARED_SECRET).doFinal(expected),
+                wire.toByteArray());
+
+        PooledOutputStream discarding = encryptedOutput(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+        next[0] = 0;
+        double perPacket = measure(() -> {
+            byte[] packet = corpus[next[0]++ % corpus.length];
+            discarding.writeFrame(packet, 0, packet.length, true);
+            if (next[0] % 4 == 0)
+                discarding.flush();
+        });
+        assertWithinBudget("c2s.encrypted.write", perPacket);
+    }
+
+    // =============== Mesure ===============
+
+    private void measureServerToClient(String scenario, byte[][] corpus, int threshold, boolean encrypted,
+            double multiplier) throws Exception {
+        measureServerToClient(scenario, corpus, threshold, encrypted, multiplier, false);
+    }
+
+    private void measureServerToClient(String scenario, byte[][] corpus, int threshold, boolean encrypted,
+            double multiplier, boolean arena) throws Exception {
+        VelocityModifier velocityModifier = new VelocityModifier();
+        velocityModifier.setMultipliers(multiplier, multiplier, multiplier);
+        FrameRelay relay = newRelay(velocityModifier, threshold, arena);
+        InputStream in = relayInput(encodeServerFrames(corpus, threshold), encrypted);
+        CapturingSink sink = arena ? new RingSink() : new CapturingSink();
+        FrameReader reader = new FrameReader(in, 0, arena ? SessionArena.SCRATCH_BYTES : 0);
+
+        double perPacket = measure(() -> relay.serverToClient(reader.next(), reader.getLength(), sink));
+        assertNull("flux entièrement consommé", reader.next());
+        assertEquals(WARMUP_PACKETS + MEASURED_PACKETS, sink.frames);
+
+        // Dernier paquet relayé tel que le client doit le recevoir
+        byte[] expected = corpus[(WARMUP_PACKETS + MEASURED_PACKETS - 1) % corpus.length].clone();
+        if (multiplier != 1.0 && (expected[0] & 0xFF) == 0x3B)
+            scaleVelocity(expected, velocityModifier);
+        assertArrayEquals(expected, Arrays.copyOfRange(sink.data, sink.offset, sink.offset + sink.length));
+
+        assertWithinBudget(scenario, perPacket);
+    }
+
+    private void measureClientToServer(String scenario, byte[][] corpus, int threshold, boolean encrypted)
+            throws Exception {
+        measureClientToServer(scenario, corpus, threshold, encrypted, false);
+    }
+
+    private void measureClientToServer(String scenario, byte[][] corpus, int threshold, boolean encrypted,
+            boolean arena) throws Exception {
+        FrameRelay relay = newRelay(new VelocityModifier(), threshold, arena);
+        InputStream in = relayInput(encodeClientFrames(corpus), encrypted);
+        CapturingSink sink = arena ? new RingSink() : new CapturingSink();
+        FrameReader reader = new FrameReader(in, FrameRelay.CLIENT_HEADROOM, arena ? SessionArena.SCRATCH_BYTES : 0);
+
+        double perPacket = measure(() -> relay.clientToServer(reader.next(), reader.getLength(), sink));
+        assertNull("flux entièrement consommé", reader.next());
+        assertEquals(WARMUP_PACKETS + MEASURED_PACKETS, sink.frames);
+
+        assertWithinBudget(scenario, perPacket);
+    }
+
+    private static double measure(RelayStep step) throws IOException {
+        for (int i = 0; i < WARMUP_PACKETS; i++)
+            step.run();
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < MEASURED_PACKETS; i++)
+            step.run();
+        long after = threads.getThreadAllocatedBytes(thread);
+        return (after - before) / (double) MEASURED_PACKETS;
+    }
+
+    private static void assertWithinBudget(String scenario, double perPacket) {
+        String value = BUDGET.getProperty(scenario);
+        assertTrue("pas de budget pour " + scenario, value != null);
+        long budget = Long.parseLong(value.trim());
+        System.out.printf("[alloc] %-28s %7.1f octets/paquet (budget %d)%n", scenario, perPacket, budget);
+        assertTrue(String.format("%s: %.1f octets alloués par paquet, budget %d", scenario, perPacket, budget),
+                perPacket <= budget);
+    }
+
+    private static FrameRelay newRelay(VelocityModifier velocityModifier, int threshold, boolean arena) {
+        // Offload désactivé: tout sur le thread mesuré, comme sur une machine mono-cœur
+        FrameRelay relay = new FrameRelay(velocityModifier, new ZlibPool(2), new ZlibOffload(0, 65536, 32768), 65536,
+                arena ? SessionArena.SCRATCH_BYTES : 0);
+        relay.setCompressionThreshold(threshold);
+        return relay;
+    }
+
+    /**
+     * Même empilement que la session: tampons empruntés, déchiffrement dessous
+     */
+    private static InputStream relayInput(byte[] plain, boolean encrypted) throws Exception {
+        BufferPool pool = new BufferPool(8192, 4);
+        if (!encrypted)
+            return new PooledInputStream(new ByteArrayInputStream(plain), pool);
+        byte[] wire = EncryptionUtil.createAESCipher(Cipher.ENCRYPT_MODE, SHARED_SECRET).doFinal(plain);
+        return new PooledInputStream(
+                new CipherStreams.DecryptingInputStream(new ByteArrayInputStream(wire), SHARED_SECRET), pool);
+    }
+
+    private static PooledOutputStream encryptedOutput(OutputStream socket) throws Exception {
+        return new PooledOutputStream(socket, new BufferPool(8192, 4),
+                EncryptionUtil.createAESCipher(Cipher.ENCRYPT_MODE, SHARED_SECRET));
+    }
+
+    // =============== Corpus protocol 110 ===============
+
+    private static byte[][] serverCorpus() {
+        return new byte[][] { velocity(1234, 800, 3000, -800), relativeMove(1234), keepAlive(42) };
+    }
+
+    private static byte[][] clientCorpus() {
+        return new byte[][] { playerPosition(), keepAliveResponse(42), animation() };
+    }
+
+    // Entity Velocity (0x3B): VarInt entityId, 3 shorts
+    private static byte[] velocity(int entityId, int x, int y, int z) {
+        PacketBuffer buf = new PacketBuffer(16);
+        buf.writeVarInt(0x3B);
+        buf.writeVarInt(entityId);
+        buf.writeShort((short) x);
+        buf.writeShort((short) y);
+        buf.writeShort((short) z);
+        return buf.toArray();
+    }
+
+    // Entity Relative Move (0x25): VarInt entityId, 3 shorts, bool
+    private static byte[] relativeMove(int entityId) {
+        PacketBuffer buf = new PacketBuffer(16);
+        buf.writeVarInt(0x25);
+        buf.writeVarInt(entityId);
+        buf.writeShort((short) 128);
+        buf.writeShort((short) 0);
+        buf.writeShort((short) -64);
+        buf.writeByte(1);
+        return buf.toArray();
+    }
+
+    // Keep Alive S2C (0x1F): VarInt id
+    private static byte[] keepAlive(int id) {
+        PacketBuffer buf = new PacketBuffer(8);
+        buf.writeVarInt(0x1F);
+        buf.writeVarInt(id);
+        return buf.toArray();
+    }
+
+    // Chunk Data (0x20), contenu en partie compressible
+    private static byte[] chunkData(int size) {
+        byte[] packet = new byte[size];
+        packet[0] = 0x20;
+        Random random = new Random(110);
+        for (int i = 1; i < size; i++)
+            packet[i] = (byte) (i % 7 == 0 ? random.nextInt() : i / 64);
+        return packet;
+    }
+
+    // Player Position C2S (0x0C): 3 doubles, bool
+    private static byte[] playerPosition() {
+        PacketBuffer buf = new PacketBuffer(32);
+        buf.writeVarInt(0x0C);
+        for (int i = 0; i < 24; i++)
+            buf.writeByte(i * 13);
+        buf.writeByte(1);
+        return buf.toArray();
+    }
+
+    // Keep Alive C2S (0x0B): VarInt id
+    private static byte[] keepAliveResponse(int id) {
+        PacketBuffer buf = new PacketBuffer(8);
+        buf.writeVarInt(0x0B);
+        buf.writeVarInt(id);
+        return buf.toArray();
+    }
+
+    // Animation C2S (0x1A): VarInt hand
+    private static byte[] animation() {
+        return new byte[] { 0x1A, 0 };
+    }
+
+    // Plugin Message C2S (0x09), au-dessus du seuil de compression
+    private static byte[] pluginMessage(int size) {
+        byte[] packet = chunkData(size);
+        packet[0] = 0x09;
+        return packet;
+    }
+
+    /**
+     * Frames telles que le serveur les envoie: [Length][DataLength][Data]
+     * (compressées au-delà du seuil) si threshold >= 0, sinon [Length][Data]
+     */
+    private static byte[] encodeServerFrames(byte[][] corpus, int threshold) {
+        byte[][] frames = new byte[corpus.length][];
+        for (int i = 0; i < corpus.length; i++) {
+            byte[] content = corpus[i];
+            PacketBuffer frame = new PacketBuffer(content.length + 16);
+            if (threshold < 0) {
+                frame.writeVarInt(content.length);
+                frame.writeBytes(content, 0, content.length);
+            } else if (content.length < threshold) {
+                frame.writeVarInt(content.length + 1);
+                frame.writeVarInt(0);
+                frame.writeBytes(content, 0, content.length);
+            } else {
+                byte[] compressed = deflate(content);
+                frame.writeVarInt(PacketBuffer.getVarIntSize(content.length) + compressed.length);
+                frame.writeVarInt(content.length);
+                frame.writeBytes(compressed, 0, compressed.length);
+            }
+            frames[i] = frame.toArray();
+        }
+        return repeat(frames);
+    }
+
+    /**
+     * Frames telles que le client les envoie (jamais compressées)
+     */
+    private static byte[] encodeClientFrames(byte[][] corpus) {
+        byte[][] frames = new byte[corpus.length][];
+        for (int i = 0; i < corpus.length; i++) {
+            PacketBuffer frame = new PacketBuffer(corpus[i].length + 5);
+            frame.writeVarInt(corpus[i].length);
+            frame.writeBytes(corpus[i], 0, corpus[i].length);
+            frames[i] = frame.toArray();
+        }
+        return repeat(frames);
+    }
+
+    private static byte[] repeat(byte[][] frames) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int i = 0; i < WARMUP_PACKETS + MEASURED_PACKETS; i++) {
+            byte[] frame = frames[i % frames.length];
+            stream.write(frame, 0, frame.length);
+        }
+        return stream.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        while (!deflater.finished())
+            out.write(buffer, 0, deflater.deflate(buffer));
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    private static void scaleVelocity(byte[] packet, VelocityModifier velocityModifier) {
+        int start = packet.length - 6;
+        short[] scaled = velocityModifier.modifyVelocity(readShort(packet, start), readShort(packet, start + 2),
+                readShort(packet, start + 4));
+        for (int i = 0; i < 3; i++) {
+            packet[start + i * 2] = (byte) (scaled[i] >> 8);
+            packet[start + i * 2 + 1] = (byte) scaled[i];
+        }
+    }
+
+    private static short readShort(byte[] data, int index) {
+        return (short) (((data[index] & 0xFF) << 8) | (data[index + 1] & 0xFF));
+    }
+
+    private interface RelayStep {
+        void run() throws IOException;
+    }
+
+    /**
+     * Garde une référence sur la dernière frame, sans copie (rien alloué
+     * pendant la mesure)
+     */
+    private static class CapturingSink implements FrameSink {
+        int frames;
+        byte[] data;
+        int offset;
+        int length;
+
+        @Override
+        public void offer(byte[] data, int offset, int length, boolean lengthPrefixed) {
+            frames++;
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Comme une file de sortie en mode arène: chaque frame est copiée dans un
+     * anneau hors tas puis relue (l'écrivain), le tableau de l'appelant est
+     * libre au retour
+     */
+    private static final class RingSink extends CapturingSink {
+        private final SessionArena.Ring ring = new SessionArena(new BufferPool(8192, 4)).newRing();
+        private final byte[] drained = new byte[4096];
+
+        @Override
+        public void offer(byte[] data, int offset, int length, boolean lengthPrefixed) {
+            if (lengthPrefixed)
+                ring.writeVarInt(length);
+            ring.write(data, offset, length);
+            int prefix = (int) ring.size() - length;
+            int count = ring.read(drained, 0, drained.length);
+            super.offer(drained, prefix, count - prefix, lengthPrefixed);
+        }
+
+        @Override
+        public boolean copiesOnOffer() {
+            return true;
+        }
+    }
+}
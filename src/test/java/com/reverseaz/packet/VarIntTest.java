@@ -0,0 +1,98 @@
+package com.reverseaz.packet;
+
+import com.reverseaz.net.BufferPool;
+import com.reverseaz.net.PooledInputStream;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Codec VarInt: mêmes octets et mêmes valeurs par tous les chemins (tableau
+ * avec ou sans fenêtre de 5 octets, flux octet par octet, tampon de session)
+ */
+public class VarIntTest {
+
+    private static final int[] BOUNDARIES = { 0, 1, 127, 128, 255, 16383, 16384, 2097151, 2097152, 268435455,
+            268435456, Integer.MAX_VALUE, -1, Integer.MIN_VALUE };
+
+    @Test
+    public void roundTripsThroughEveryPath() throws IOException {
+        Random random = new Random(50);
+        for (int i = 0; i < BOUNDARIES.length + 10000; i++) {
+            int value = i < BOUNDARIES.length ? BOUNDARIES[i] : random.nextInt() >>> random.nextInt(32);
+            byte[] encoded = reference(value);
+            assertEquals(encoded.length, VarInt.size(value));
+
+            byte[] written = new byte[encoded.length];
+            assertEquals(encoded.length, VarInt.write(written, 0, value));
+            assertArrayEquals(encoded, written);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            VarInt.write(out, value);
+            assertArrayEquals(encoded, out.toByteArray());
+
+            // Fenêtre de 5 octets, puis exactement la taille du VarInt
+            byte[] padded = new byte[encoded.length + VarInt.MAX_BYTES];
+            System.arraycopy(encoded, 0, padded, 0, encoded.length);
+            assertDecoded(value, encoded.length, VarInt.decode(padded, 0, padded.length));
+            assertDecoded(value, encoded.length, VarInt.decode(encoded, 0, encoded.length));
+
+            assertEquals(value, VarInt.read(new ByteArrayInputStream(encoded)));
+            assertEquals(value, PacketBuffer.wrap(encoded, encoded.length).readVarInt());
+        }
+    }
+
+    @Test
+    public void truncatedVarIntNeedsMoreBytes() {
+        byte[] encoded = reference(Integer.MAX_VALUE);
+        for (int available = 0; available < encoded.length; available++)
+            assertEquals(VarInt.INCOMPLETE, VarInt.decode(encoded, 0, available));
+        assertEquals(VarInt.MALFORMED, VarInt.decode(new byte[] { -1, -1, -1, -1, -1, 0 }, 0, 6));
+        assertEquals(VarInt.MALFORMED, VarInt.decode(new byte[] { -1, -1, -1, -1, -1 }, 0, 5));
+    }
+
+    @Test
+    public void streamReadsLengthsSplitAcrossBufferRefills() throws IOException {
+        // Tampon de 16 octets: des VarInt à cheval sur deux remplissages
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        int[] values = new int[2000];
+        Random random = new Random(110);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(1 << (7 * (1 + i % 4)));
+            VarInt.write(frames, values[i]);
+        }
+        PooledInputStream in = new PooledInputStream(new ByteArrayInputStream(frames.toByteArray()),
+                new BufferPool(16, 2));
+        for (int value : values)
+            assertEquals(value, in.readVarInt());
+        assertEquals(-1, in.readVarInt());
+
+        try {
+            VarInt.read(new ByteArrayInputStream(new byte[] { -1, -1, -1, -1, -1, 0 }));
+            fail("VarInt de 6 octets accepté");
+        } catch (IOException expected) {
+        }
+    }
+
+    private static void assertDecoded(int value, int size, long decoded) {
+        assertEquals(value, VarInt.decodedValue(decoded));
+        assertEquals(size, VarInt.decodedSize(decoded));
+    }
+
+    // Encodage d'origine (boucle), référence du format
+    private static byte[] reference(int value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+        return out.toByteArray();
+    }
+}